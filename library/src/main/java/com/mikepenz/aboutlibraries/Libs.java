@@ -1,23 +1,35 @@
 package com.mikepenz.aboutlibraries;
 
 import android.content.Context;
-import android.content.SharedPreferences;
-import android.content.pm.PackageInfo;
 import android.text.TextUtils;
 import android.util.Log;
 
+import com.mikepenz.aboutlibraries.catalog.LibraryCatalog;
+import com.mikepenz.aboutlibraries.catalog.LicenseTexts;
 import com.mikepenz.aboutlibraries.detector.Detect;
+import com.mikepenz.aboutlibraries.detector.DetectionCache;
+import com.mikepenz.aboutlibraries.detector.DexDetect;
 import com.mikepenz.aboutlibraries.entity.Library;
 import com.mikepenz.aboutlibraries.entity.License;
+import com.mikepenz.aboutlibraries.entity.LicenseDefinition;
+import com.mikepenz.aboutlibraries.util.CaseInsensitiveIndex;
 import com.mikepenz.aboutlibraries.util.GenericsUtil;
+import com.mikepenz.aboutlibraries.util.LibrarySearchIndex;
+import com.mikepenz.aboutlibraries.util.ParallelUtil;
+import com.mikepenz.aboutlibraries.util.TextTemplate;
 import com.mikepenz.aboutlibraries.util.Util;
 
 import java.lang.reflect.Field;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.Executor;
 
 public class Libs {
     public enum LibraryFields {
@@ -57,12 +69,40 @@ public class Libs {
     private static final String DEFINE_INT = "define_int_";
     private static final String DEFINE_EXT = "define_";
 
-    private static final String DELIMITER = ";";
+    //the number of libraries parsed before they are passed to the ParseListener
+    private static final int PARSE_BATCH_SIZE = 16;
+
+    /**
+     * receives the libraries while a Libs instance is created, before all of them are parsed
+     */
+    public interface ParseListener {
+        /**
+         * called on the creating thread for each batch of parsed libraries, the external ones first.
+         * The libraries belong to the Libs instance, they must not be modified
+         *
+         * @param libraries the parsed libraries of the batch
+         */
+        void onLibrariesParsed(List<Library> libraries);
+    }
 
     private ArrayList<Library> internLibraries = new ArrayList<>();
     private ArrayList<Library> externLibraries = new ArrayList<>();
     private ArrayList<License> licenses = new ArrayList<>();
 
+    //read-only views on the lists above
+    private final List<Library> internLibrariesView = Collections.unmodifiableList(internLibraries);
+    private final List<Library> externLibrariesView = Collections.unmodifiableList(externLibraries);
+    private final List<License> licensesView = Collections.unmodifiableList(licenses);
+    private final List<Library> librariesView = new ConcatenatedList<>(internLibraries, externLibraries);
+
+    //case insensitive indices on the libraryName / definedName, built lazily and dropped if the libraries are modified
+    private volatile CaseInsensitiveIndex<Library> libraryIndex;
+    private volatile CaseInsensitiveIndex<License> licenseIndex;
+    private volatile LibrarySearchIndex searchIndex;
+
+    private LibraryCatalog catalog;
+    private Executor executor;
+
     public Libs(Context context) {
         String[] fields = GenericsUtil.getFields(context);
         init(context, fields);
@@ -72,12 +112,91 @@ public class Libs {
         init(context, fields);
     }
 
+    /**
+     * Creates a Libs instance which reads the definitions from the precompiled catalog instead of
+     * resolving every string via its resource identifier.
+     * Definitions which are not part of the catalog are still read from the resources.
+     * NOTE: Translated definition strings have no effect in this mode, use the library modifications instead
+     *
+     * @param fields  the fields to load (the define_* strings)
+     * @param catalog the catalog to read the bundled definitions from, see LibraryCatalog.getInstance(Context)
+     */
+    public Libs(Context context, String[] fields, LibraryCatalog catalog) {
+        this.catalog = catalog;
+        init(context, fields);
+    }
+
+    /**
+     * Creates a Libs instance which loads the library definitions in parallel on the given executor.
+     * The licenses are still loaded first, the order of the libraries is the same as with the sequential loading.
+     * The executor is also used to probe the classPaths of the libraries in getAutoDetectedLibraries()
+     *
+     * @param fields   the fields to load (the define_* strings)
+     * @param catalog  the catalog to read the bundled definitions from, or null to read everything from the resources
+     * @param executor the executor to load the libraries on (e.g. AsyncTask.THREAD_POOL_EXECUTOR), or null to load them sequentially
+     */
+    public Libs(Context context, String[] fields, LibraryCatalog catalog, Executor executor) {
+        this(context, fields, catalog, executor, null);
+    }
+
+    /**
+     * Creates a Libs instance like Libs(Context, String[], LibraryCatalog, Executor), which passes the libraries to
+     * the listener in batches while they are parsed
+     *
+     * @param fields   the fields to load (the define_* strings)
+     * @param catalog  the catalog to read the bundled definitions from, or null to read everything from the resources
+     * @param executor the executor to load the libraries on, or null to load them sequentially
+     * @param listener the listener to pass the parsed libraries to, or null
+     */
+    public Libs(Context context, String[] fields, LibraryCatalog catalog, Executor executor, ParseListener listener) {
+        this.catalog = catalog;
+        this.executor = executor;
+        init(context, fields, listener);
+    }
+
+    /**
+     * Creates a copy of the given instance. The libraries and licenses are copied, so modifying the copy (or the
+     * libraries it returns) does not change the source, only the immutable license definitions are shared
+     *
+     * @param source the instance to copy
+     */
+    private Libs(Libs source) {
+        this.catalog = source.catalog;
+        this.executor = source.executor;
+        for (License license : source.licenses) {
+            licenses.add(license.copy());
+        }
+        for (Library library : source.internLibraries) {
+            internLibraries.add(library.copy());
+        }
+        for (Library library : source.externLibraries) {
+            externLibraries.add(library.copy());
+        }
+    }
+
+    /**
+     * @return a copy of this instance, see Libs(Libs)
+     */
+    public Libs copy() {
+        return new Libs(this);
+    }
+
+    /**
+     * init method
+     *
+     * @param fields
+     */
+    private void init(final Context ctx, String[] fields) {
+        init(ctx, fields, null);
+    }
+
     /**
      * init method
      *
      * @param fields
+     * @param listener the listener to pass the parsed libraries to, or null
      */
-    private void init(Context ctx, String[] fields) {
+    private void init(final Context ctx, String[] fields, ParseListener listener) {
         ArrayList<String> foundLicenseIdentifiers = new ArrayList<>();
         ArrayList<String> foundInternalLibraryIdentifiers = new ArrayList<>();
         ArrayList<String> foundExternalLibraryIdentifiers = new ArrayList<>();
@@ -102,21 +221,67 @@ public class Libs {
                 licenses.add(license);
             }
         }
-        //add internal libs
-        for (String internalIdentifier : foundInternalLibraryIdentifiers) {
-            Library library = genLibrary(ctx, internalIdentifier);
+        //index them before the libraries (possibly in parallel) look up their license
+        licenseIndex = indexLicenses();
+        //add the libraries, internal ones first. each library is independent once the licenses are known
+        final int internalCount = foundInternalLibraryIdentifiers.size();
+        final String[] libraryIdentifiers = new String[internalCount + foundExternalLibraryIdentifiers.size()];
+        foundInternalLibraryIdentifiers.toArray(libraryIdentifiers);
+        for (int i = internalCount; i < libraryIdentifiers.length; i++) {
+            libraryIdentifiers[i] = foundExternalLibraryIdentifiers.get(i - internalCount);
+        }
+
+        final Library[] libraries = new Library[libraryIdentifiers.length];
+        //the external libraries are shown without detection, so a listener gets them first
+        parseLibraries(ctx, libraryIdentifiers, internalCount, libraries, internalCount, libraryIdentifiers.length, listener);
+        parseLibraries(ctx, libraryIdentifiers, internalCount, libraries, 0, internalCount, listener);
+
+        //merge in the order of the fields
+        for (Library library : libraries) {
             if (library != null) {
-                library.setInternal(true);
-                internLibraries.add(library);
+                if (library.isInternal()) {
+                    internLibraries.add(library);
+                } else {
+                    externLibraries.add(library);
+                }
             }
         }
+    }
 
-        //add external libs
-        for (String externalIdentifier : foundExternalLibraryIdentifiers) {
-            Library library = genLibrary(ctx, externalIdentifier);
-            if (library != null) {
-                library.setInternal(false);
-                externLibraries.add(library);
+    /**
+     * parses the libraries from (inclusive) to (exclusive), in batches if they are passed to a listener
+     *
+     * @param identifiers   the identifiers of all libraries, the internal ones first
+     * @param internalCount the number of internal libraries
+     * @param libraries     the array to store the libraries in, at the index of their identifier
+     */
+    private void parseLibraries(final Context ctx, final String[] identifiers, final int internalCount, final Library[] libraries, int from, int to, ParseListener listener) {
+        int batchSize = listener != null ? PARSE_BATCH_SIZE : Math.max(1, to - from);
+        for (int start = from; start < to; start += batchSize) {
+            final int batchStart = start;
+            final int batchEnd = Math.min(start + batchSize, to);
+            ParallelUtil.forEach(executor, batchEnd - batchStart, new ParallelUtil.IndexedTask() {
+                @Override
+                public void run(int offset) {
+                    int index = batchStart + offset;
+                    Library library = genLibrary(ctx, identifiers[index]);
+                    if (library != null) {
+                        library.setInternal(index < internalCount);
+                        libraries[index] = library;
+                    }
+                }
+            });
+
+            if (listener != null) {
+                ArrayList<Library> batch = new ArrayList<>(batchEnd - batchStart);
+                for (int i = batchStart; i < batchEnd; i++) {
+                    if (libraries[i] != null) {
+                        batch.add(libraries[i]);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    listener.onLibrariesParsed(batch);
+                }
             }
         }
     }
@@ -148,12 +313,27 @@ public class Libs {
      * @return the summarized list of included Libraries
      */
     public ArrayList<Library> prepareLibraries(Context ctx, String[] internalLibraries, String[] excludeLibraries, boolean autoDetect, boolean checkCachedDetection, boolean sort) {
+        return prepareLibraries(ctx, internalLibraries, excludeLibraries, autoDetect, checkCachedDetection, false, sort);
+    }
+
+    /**
+     * This will summarize all libraries and elimate duplicates
+     *
+     * @param internalLibraries    the String[] with the internalLibraries (if set manual)
+     * @param excludeLibraries     the String[] with the libs to be excluded
+     * @param autoDetect           defines if the libraries should be resolved by their classpath (if possible)
+     * @param checkCachedDetection defines if we should check the cached autodetected libraries (per version) (default: enabled)
+     * @param dexDetection         defines if the libraries should be detected by scanning the dex files of the APK instead of loading their classpath
+     * @param sort                 defines if the array should be sorted
+     * @return the summarized list of included Libraries
+     */
+    public ArrayList<Library> prepareLibraries(Context ctx, String[] internalLibraries, String[] excludeLibraries, boolean autoDetect, boolean checkCachedDetection, boolean dexDetection, boolean sort) {
         boolean isExcluding = excludeLibraries != null;
         HashMap<String, Library> libraries = isExcluding? new HashMap<String, Library>():null;
         ArrayList<Library> resultLibraries = new ArrayList<>();
 
         if (autoDetect) {
-            List<Library> autoDetected = getAutoDetectedLibraries(ctx, checkCachedDetection);
+            List<Library> autoDetected = getAutoDetectedLibraries(ctx, checkCachedDetection, dexDetection);
             resultLibraries.addAll(autoDetected);
 
             if(isExcluding) {
@@ -164,7 +344,7 @@ public class Libs {
         }
 
         //Add all external libraries
-        List<Library> extern = getExternLibraries();
+        List<Library> extern = externLibraries;
         resultLibraries.addAll(extern);
 
         if(isExcluding) {
@@ -209,42 +389,58 @@ public class Libs {
      * @return an ArrayList Library with all found libs by their classpath
      */
     public List<Library> getAutoDetectedLibraries(Context ctx, boolean checkCachedDetection) {
-        List<Library> libraries;
-        PackageInfo pi = Util.getPackageInfo(ctx);
-        SharedPreferences sharedPreferences = ctx.getSharedPreferences("aboutLibraries", Context.MODE_PRIVATE);
-        int lastCacheVersion = sharedPreferences.getInt("versionCode", -1);
-        boolean isCacheUpToDate = pi != null && lastCacheVersion == pi.versionCode;
-
-        if (checkCachedDetection) {//Retrieve from cache if up to date
-            if (pi != null && isCacheUpToDate) {
-                String[] autoDetectedLibraries = sharedPreferences.getString("autoDetectedLibraries", "").split(DELIMITER);
-
-                if (autoDetectedLibraries.length > 0) {
-                    libraries = new ArrayList<>(autoDetectedLibraries.length);
-                    for (String autoDetectedLibrary : autoDetectedLibraries) {
-                        Library lib = getLibrary(autoDetectedLibrary);
-                        if (lib != null) libraries.add(lib);
-                    }
-                    return libraries;
-                }
-            }
+        return getAutoDetectedLibraries(ctx, checkCachedDetection, false);
+    }
+
+    /**
+     * Get all autoDetected Libraries
+     *
+     * @param ctx                  the current context
+     * @param checkCachedDetection defines if we should check the cached autodetected libraries (per version) (default: enabled)
+     * @param dexDetection         defines if the dex files of the APK should be scanned instead of loading the classpath of every library.
+     *                             Falls back to loading the classpaths if the APK can't be scanned
+     * @return an ArrayList Library with all found libs by their classpath
+     */
+    public List<Library> getAutoDetectedLibraries(Context ctx, boolean checkCachedDetection, boolean dexDetection) {
+        //the libraries were already detected when the app was built, nothing has to be loaded
+        List<Library> libraries = getGeneratedDetectedLibraries();
+        if (libraries != null) {
+            return libraries;
+        }
+
+        List<Library> cachedLibraries = DetectionCache.read(ctx, librariesView);
+        if (checkCachedDetection && cachedLibraries != null) {//Retrieve from cache if up to date
+            return cachedLibraries;
         }
 
-        libraries = Detect.detect(ctx, getLibraries());
+        libraries = dexDetection ? DexDetect.detect(ctx, librariesView) : null;
+        if (libraries == null) {
+            libraries = Detect.detect(ctx, librariesView, executor);
+        }
 
-        if (pi != null && !isCacheUpToDate) {//Update cache
-            StringBuilder autoDetectedLibrariesPref = new StringBuilder();
+        if (cachedLibraries == null) {//Update cache
+            DetectionCache.write(ctx, librariesView, libraries);
+        }
 
-            for (Library lib : libraries) {
-                autoDetectedLibrariesPref.append(DELIMITER).append(lib.getDefinedName());
-            }
+        return libraries;
+    }
 
-            sharedPreferences.edit()
-                    .putInt("versionCode", pi.versionCode)
-                    .putString("autoDetectedLibraries", autoDetectedLibrariesPref.toString())
-                    .apply();
+    /**
+     * @return the libraries detected by gradle-aboutlibraries.gradle when the app was built, or null if it did not detect them
+     */
+    private List<Library> getGeneratedDetectedLibraries() {
+        String[] detected = GenericsUtil.getGeneratedDetected();
+        if (detected == null) {
+            return null;
         }
 
+        HashSet<String> detectedNames = new HashSet<>(Arrays.asList(detected));
+        List<Library> libraries = new ArrayList<>();
+        for (Library library : librariesView) {
+            if (detectedNames.contains(library.getDefinedName())) {
+                libraries.add(library);
+            }
+        }
         return libraries;
     }
 
@@ -281,12 +477,48 @@ public class Libs {
      * @return an ArrayList Library with all available Libraries
      */
     public ArrayList<Library> getLibraries() {
-        ArrayList<Library> libs = new ArrayList<>();
-        libs.addAll(getInternLibraries());
-        libs.addAll(getExternLibraries());
+        ArrayList<Library> libs = new ArrayList<>(internLibraries.size() + externLibraries.size());
+        libs.addAll(internLibraries);
+        libs.addAll(externLibraries);
         return libs;
     }
 
+    /**
+     * Get a read-only view on the intern available Libraries. Unlike getInternLibraries() this does not copy the list
+     *
+     * @return an unmodifiable List with all available internLibraries
+     */
+    public List<Library> getInternLibrariesView() {
+        return internLibrariesView;
+    }
+
+    /**
+     * Get a read-only view on the extern available Libraries. Unlike getExternLibraries() this does not copy the list
+     *
+     * @return an unmodifiable List with all available externLibraries
+     */
+    public List<Library> getExternLibrariesView() {
+        return externLibrariesView;
+    }
+
+    /**
+     * Get a read-only view on the available licenses. Unlike getLicenses() this does not copy the list
+     *
+     * @return an unmodifiable List with all available Licenses
+     */
+    public List<License> getLicensesView() {
+        return licensesView;
+    }
+
+    /**
+     * Get a read-only view on all available Libraries (the intern ones first). Unlike getLibraries() this does not copy the lists
+     *
+     * @return an unmodifiable List with all available Libraries
+     */
+    public List<Library> getLibrariesView() {
+        return librariesView;
+    }
+
     /**
      * Get a library by its name (the name must be equal)
      *
@@ -294,14 +526,22 @@ public class Libs {
      * @return the found library or null
      */
     public Library getLibrary(String libraryName) {
-        for (Library library : getLibraries()) {
-            if (library.getLibraryName().toLowerCase().equals(libraryName.toLowerCase())) {
-                return library;
-            } else if (library.getDefinedName().toLowerCase().equals(libraryName.toLowerCase())) {
-                return library;
-            }
+        CaseInsensitiveIndex<Library> index = libraryIndex;
+        if (index == null) {
+            index = new CaseInsensitiveIndex<>(2 * (internLibraries.size() + externLibraries.size()));
+            //the first library matching either name wins, the same as the previous linear search
+            indexLibraries(index, internLibraries);
+            indexLibraries(index, externLibraries);
+            libraryIndex = index;
+        }
+        return index.get(libraryName);
+    }
+
+    private static void indexLibraries(CaseInsensitiveIndex<Library> index, List<Library> libraries) {
+        for (Library library : libraries) {
+            index.putIfAbsent(library.getLibraryName(), library);
+            index.putIfAbsent(library.getDefinedName(), library);
         }
-        return null;
     }
 
     /**
@@ -312,7 +552,29 @@ public class Libs {
      * @return an ArrayList Library with the found internLibraries
      */
     public ArrayList<Library> findLibrary(String searchTerm, int limit) {
-        return find(getLibraries(), searchTerm, false, limit);
+        return getSearchIndex().find(searchTerm, limit);
+    }
+
+    /**
+     * Search the libraries by a searchTerm, the best matches first
+     * The libraryName, the definedName, the author and the description are searched. The search index is built with
+     * the first search, so it is cheap enough to search while the user is typing
+     *
+     * @param searchTerm the term to search for (NOT case sensitiv)
+     * @param limit      -1 for all results or the maximum number of results
+     * @return an ArrayList Library with the found libraries, ranked by the field and the quality of the match
+     */
+    public ArrayList<Library> searchLibraries(String searchTerm, int limit) {
+        return getSearchIndex().search(searchTerm, limit);
+    }
+
+    private LibrarySearchIndex getSearchIndex() {
+        LibrarySearchIndex index = searchIndex;
+        if (index == null) {
+            index = new LibrarySearchIndex(librariesView);
+            searchIndex = index;
+        }
+        return index;
     }
 
     /**
@@ -322,7 +584,7 @@ public class Libs {
      * @return
      */
     public ArrayList<Library> findInInternalLibrary(String searchTerm, boolean idOnly, int limit) {
-        return find(getInternLibraries(), searchTerm, idOnly, limit);
+        return find(internLibraries, searchTerm, idOnly, limit);
     }
 
     /**
@@ -332,7 +594,7 @@ public class Libs {
      * @return
      */
     public ArrayList<Library> findInExternalLibrary(String searchTerm, boolean idOnly, int limit) {
-        return find(getExternLibraries(), searchTerm, idOnly, limit);
+        return find(externLibraries, searchTerm, idOnly, limit);
     }
 
     /**
@@ -342,7 +604,7 @@ public class Libs {
      * @param limit
      * @return
      */
-    private ArrayList<Library> find(ArrayList<Library> libraries, String searchTerm, boolean idOnly, int limit) {
+    private ArrayList<Library> find(List<Library> libraries, String searchTerm, boolean idOnly, int limit) {
         ArrayList<Library> localLibs = new ArrayList<>();
 
         int count = 0;
@@ -377,14 +639,21 @@ public class Libs {
      * @return
      */
     public License getLicense(String licenseName) {
-        for (License license : getLicenses()) {
-            if (license.getLicenseName().toLowerCase().equals(licenseName.toLowerCase())) {
-                return license;
-            } else if (license.getDefinedName().toLowerCase().equals(licenseName.toLowerCase())) {
-                return license;
-            }
+        CaseInsensitiveIndex<License> index = licenseIndex;
+        if (index == null) {
+            index = indexLicenses();
+            licenseIndex = index;
         }
-        return null;
+        return index.get(licenseName);
+    }
+
+    private CaseInsensitiveIndex<License> indexLicenses() {
+        CaseInsensitiveIndex<License> index = new CaseInsensitiveIndex<>(2 * licenses.size());
+        for (License license : licenses) {
+            index.putIfAbsent(license.getLicenseName(), license);
+            index.putIfAbsent(license.getDefinedName(), license);
+        }
+        return index;
     }
 
     /**
@@ -393,15 +662,24 @@ public class Libs {
      */
     private License genLicense(Context ctx, String licenseName) {
         licenseName = licenseName.replace("-", "_");
+        boolean fromCatalog = catalog != null && catalog.definesLicense(licenseName);
 
         try {
-            License lic = new License();
-            lic.setDefinedName(licenseName);
-            lic.setLicenseName(getStringResourceByName(ctx, "license_" + licenseName + "_licenseName"));
-            lic.setLicenseWebsite(getStringResourceByName(ctx, "license_" + licenseName + "_licenseWebsite"));
-            lic.setLicenseShortDescription(getStringResourceByName(ctx, "license_" + licenseName + "_licenseShortDescription"));
-            lic.setLicenseDescription(getStringResourceByName(ctx, "license_" + licenseName + "_licenseDescription"));
-            return lic;
+            String name = getDefinitionString(ctx, fromCatalog, "license_" + licenseName + "_licenseName");
+            String website = getDefinitionString(ctx, fromCatalog, "license_" + licenseName + "_licenseWebsite");
+            String shortDescription = getDefinitionString(ctx, fromCatalog, "license_" + licenseName + "_licenseShortDescription");
+            String description = getDefinitionString(ctx, fromCatalog, "license_" + licenseName + "_licenseDescription");
+
+            LicenseDefinition definition;
+            LicenseTexts licenseTexts = TextUtils.isEmpty(description) ? LicenseTexts.getInstance(ctx) : null;
+            if (licenseTexts != null && licenseTexts.contains(licenseName)) {
+                //the full text of the bundled licenses is only read when it is shown
+                definition = new LicenseDefinition(licenseName, name, website, shortDescription, licenseTexts);
+            } else {
+                definition = new LicenseDefinition(licenseName, name, website, shortDescription, description);
+            }
+            //the libraries using this license share the definition
+            return new License(definition, null);
         } catch (Exception ex) {
             Log.e("aboutlibraries", "Failed to generateLicense from file: " + ex.toString());
             return null;
@@ -414,42 +692,41 @@ public class Libs {
      */
     private Library genLibrary(Context ctx, String libraryName) {
         libraryName = libraryName.replace("-", "_");
+        boolean fromCatalog = catalog != null && catalog.definesLibrary(libraryName);
 
         try {
             Library lib = new Library();
 
             //Get custom vars to insert into defined areas
-            HashMap<String, String> customVariables = getCustomVariables(ctx, libraryName);
+            HashMap<String, String> customVariables = getCustomVariables(ctx, fromCatalog, libraryName);
 
             lib.setDefinedName(libraryName);
-            lib.setAuthor(getStringResourceByName(ctx, "library_" + libraryName + "_author"));
-            lib.setAuthorWebsite(getStringResourceByName(ctx, "library_" + libraryName + "_authorWebsite"));
-            lib.setLibraryName(getStringResourceByName(ctx, "library_" + libraryName + "_libraryName"));
-            lib.setLibraryDescription(insertVariables(getStringResourceByName(ctx, "library_" + libraryName + "_libraryDescription"), customVariables));
-            lib.setLibraryVersion(getStringResourceByName(ctx, "library_" + libraryName + "_libraryVersion"));
-            lib.setLibraryWebsite(getStringResourceByName(ctx, "library_" + libraryName + "_libraryWebsite"));
-
-            String licenseId = getStringResourceByName(ctx, "library_" + libraryName + "_licenseId");
+            lib.setAuthor(getDefinitionString(ctx, fromCatalog, "library_" + libraryName + "_author"));
+            lib.setAuthorWebsite(getDefinitionString(ctx, fromCatalog, "library_" + libraryName + "_authorWebsite"));
+            lib.setLibraryName(getDefinitionString(ctx, fromCatalog, "library_" + libraryName + "_libraryName"));
+            lib.setLibraryDescription(insertVariables(getDefinitionString(ctx, fromCatalog, "library_" + libraryName + "_libraryDescription"), customVariables));
+            lib.setLibraryVersion(getDefinitionString(ctx, fromCatalog, "library_" + libraryName + "_libraryVersion"));
+            lib.setLibraryWebsite(getDefinitionString(ctx, fromCatalog, "library_" + libraryName + "_libraryWebsite"));
+
+            String licenseId = getDefinitionString(ctx, fromCatalog, "library_" + libraryName + "_licenseId");
             if (TextUtils.isEmpty(licenseId)) {
                 License license = new License();
-                license.setLicenseName(getStringResourceByName(ctx, "library_" + libraryName + "_licenseVersion"));
-                license.setLicenseWebsite(getStringResourceByName(ctx, "library_" + libraryName + "_licenseLink"));
-                license.setLicenseShortDescription(insertVariables(getStringResourceByName(ctx, "library_" + libraryName + "_licenseContent"), customVariables));
+                license.setLicenseName(getDefinitionString(ctx, fromCatalog, "library_" + libraryName + "_licenseVersion"));
+                license.setLicenseWebsite(getDefinitionString(ctx, fromCatalog, "library_" + libraryName + "_licenseLink"));
+                license.setLicenseShortDescription(insertVariables(getDefinitionString(ctx, fromCatalog, "library_" + libraryName + "_licenseContent"), customVariables));
                 lib.setLicense(license);
             } else {
                 License license = getLicense(licenseId);
                 if (license != null) {
-                    license = license.copy();
-                    license.setLicenseShortDescription(insertVariables(license.getLicenseShortDescription(), customVariables));
-                    license.setLicenseDescription(insertVariables(license.getLicenseDescription(), customVariables));
-                    lib.setLicense(license);
+                    //an overlay on the shared definition, the descriptions are rendered with the custom variables once they are accessed
+                    lib.setLicense(license.copy(customVariables));
                 }
             }
 
-            lib.setOpenSource(Boolean.valueOf(getStringResourceByName(ctx, "library_" + libraryName + "_isOpenSource")));
-            lib.setRepositoryLink(getStringResourceByName(ctx, "library_" + libraryName + "_repositoryLink"));
+            lib.setOpenSource(Boolean.valueOf(getDefinitionString(ctx, fromCatalog, "library_" + libraryName + "_isOpenSource")));
+            lib.setRepositoryLink(getDefinitionString(ctx, fromCatalog, "library_" + libraryName + "_repositoryLink"));
 
-            lib.setClassPath(getStringResourceByName(ctx, "library_" + libraryName + "_classPath"));
+            lib.setClassPath(getDefinitionString(ctx, fromCatalog, "library_" + libraryName + "_classPath"));
 
             if (TextUtils.isEmpty(lib.getLibraryName()) && TextUtils.isEmpty(lib.getLibraryDescription())) {
                 return null;
@@ -467,18 +744,22 @@ public class Libs {
      * @return
      */
     public HashMap<String, String> getCustomVariables(Context ctx, String libraryName) {
+        return getCustomVariables(ctx, catalog != null && catalog.definesLibrary(libraryName), libraryName);
+    }
+
+    private HashMap<String, String> getCustomVariables(Context ctx, boolean fromCatalog, String libraryName) {
         HashMap<String, String> customVariables = new HashMap<String, String>();
 
-        String customVariablesString = getStringResourceByName(ctx, DEFINE_EXT + libraryName);
+        String customVariablesString = getDefinitionString(ctx, fromCatalog, DEFINE_EXT + libraryName);
         if (TextUtils.isEmpty(customVariablesString)) {
-            customVariablesString = getStringResourceByName(ctx, DEFINE_INT + libraryName);
+            customVariablesString = getDefinitionString(ctx, fromCatalog, DEFINE_INT + libraryName);
         }
 
         if (!TextUtils.isEmpty(customVariablesString)) {
             String[] customVariableArray = customVariablesString.split(";");
             if (customVariableArray.length > 0) {
                 for (String customVariableKey : customVariableArray) {
-                    String customVariableContent = getStringResourceByName(ctx, "library_" + libraryName + "_" + customVariableKey);
+                    String customVariableContent = getDefinitionString(ctx, fromCatalog, "library_" + libraryName + "_" + customVariableKey);
                     if (!TextUtils.isEmpty(customVariableContent)) {
                         customVariables.put(customVariableKey, customVariableContent);
                     }
@@ -490,28 +771,27 @@ public class Libs {
     }
 
     public String insertVariables(String insertInto, HashMap<String, String> variables) {
-        for (Map.Entry<String, String> entry : variables.entrySet()) {
-            if (!TextUtils.isEmpty(entry.getValue())) {
-                insertInto = insertInto.replace("<<<" + entry.getKey().toUpperCase() + ">>>", entry.getValue());
-            }
-        }
-
-        //remove the placeholder chars so the license is shown correct
-        insertInto = insertInto.replace("<<<", "");
-        insertInto = insertInto.replace(">>>", "");
+        //the placeholder chars are removed so the license is shown correct
+        return TextTemplate.compile(insertInto).render(variables);
+    }
 
-        return insertInto;
+    /**
+     * helper to get a string of a definition, either out of the catalog (if the definition is part of it) or out of the resources
+     *
+     * @param fromCatalog true if the definition is part of the catalog, in this case a missing string is not looked up in the resources
+     * @param aString     the name of the string
+     * @return the string or an empty string if not defined
+     */
+    private String getDefinitionString(Context ctx, boolean fromCatalog, String aString) {
+        if (fromCatalog) {
+            String value = catalog.getString(aString);
+            return value == null ? "" : value;
+        }
+        return getStringResourceByName(ctx, aString);
     }
 
     public String getStringResourceByName(Context ctx, String aString) {
-        String packageName = ctx.getPackageName();
-
-        int resId = ctx.getResources().getIdentifier(aString, "string", packageName);
-        if (resId == 0) {
-            return "";
-        } else {
-            return ctx.getString(resId);
-        }
+        return Util.getStringResourceByName(ctx, aString);
     }
 
 
@@ -520,6 +800,9 @@ public class Libs {
      */
     public void modifyLibraries(HashMap<String, HashMap<String, String>> modifications) {
         if (modifications != null) {
+            //names may change, the indices are rebuilt with the next lookup
+            libraryIndex = null;
+            searchIndex = null;
             for (Map.Entry<String, HashMap<String, String>> entry : modifications.entrySet()) {
                 ArrayList<Library> foundLibs = findInExternalLibrary(entry.getKey(), true, 1);
                 if (foundLibs == null || foundLibs.size() == 0) {
@@ -577,4 +860,28 @@ public class Libs {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * an unmodifiable List backed by two lists, without copying them
+     */
+    private static class ConcatenatedList<T> extends AbstractList<T> implements RandomAccess {
+        private final List<T> first;
+        private final List<T> second;
+
+        ConcatenatedList(List<T> first, List<T> second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public T get(int index) {
+            int firstSize = first.size();
+            return index < firstSize ? first.get(index) : second.get(index - firstSize);
+        }
+
+        @Override
+        public int size() {
+            return first.size() + second.size();
+        }
+    }
+}
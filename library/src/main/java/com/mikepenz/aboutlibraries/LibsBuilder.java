@@ -2,17 +2,22 @@ package com.mikepenz.aboutlibraries;
 
 import android.content.Context;
 import android.content.Intent;
+import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.support.annotation.NonNull;
 import android.util.Log;
 import android.view.animation.LayoutAnimationController;
 
+import com.mikepenz.aboutlibraries.catalog.LibraryCatalog;
 import com.mikepenz.aboutlibraries.entity.Library;
 import com.mikepenz.aboutlibraries.ui.LibsActivity;
 import com.mikepenz.aboutlibraries.ui.LibsFragment;
 import com.mikepenz.aboutlibraries.ui.LibsSupportFragment;
 import com.mikepenz.aboutlibraries.ui.item.LibraryItem;
 import com.mikepenz.aboutlibraries.util.Colors;
+import com.mikepenz.aboutlibraries.util.GenericsUtil;
 import com.mikepenz.fastadapter.FastAdapter;
 import com.mikepenz.fastadapter.adapters.ItemAdapter;
 
@@ -22,15 +27,22 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
 
 @SuppressWarnings("unused")
-public class LibsBuilder implements Serializable {
+public class LibsBuilder implements Serializable, Parcelable {
     public String[] fields = null;
     public String[] internalLibraries = null;
     public String[] excludeLibraries = null;
 
     public Boolean autoDetect = true;
     public Boolean checkCachedDetection = true;
+    public Boolean dexDetection = false;
+    public Boolean useCatalog = false;
+    public Boolean useCache = true;
+    public Boolean useSnapshot = true;
     public Boolean sort = true;
     public Comparator<Library> libraryComparator = null;
 
@@ -60,14 +72,263 @@ public class LibsBuilder implements Serializable {
     public Libs.ActivityStyle activityStyle = null;
 
     public LibTaskExecutor libTaskExecutor = LibTaskExecutor.DEFAULT_EXECUTOR;
+    //not parcelled, only this instance (and the fragments it creates) loads on it
+    public transient Executor loaderExecutor = null;
 
     public HashMap<String, HashMap<String, String>> libraryModification = null;
 
     public Class ownLibsActivityClass = LibsActivity.class;
 
+    public String prefetchId = null;
+
     public LibsBuilder() {
     }
 
+    /**
+     * The builder is passed to the LibsActivity and the fragments as Parcelable, which is a lot cheaper than the
+     * reflective Java serialization. (It stays Serializable for code which still passes it this way)
+     */
+    protected LibsBuilder(Parcel in) {
+        fields = in.createStringArray();
+        internalLibraries = in.createStringArray();
+        excludeLibraries = in.createStringArray();
+
+        autoDetect = readBoolean(in);
+        checkCachedDetection = readBoolean(in);
+        dexDetection = readBoolean(in);
+        useCatalog = readBoolean(in);
+        useCache = readBoolean(in);
+        useSnapshot = readBoolean(in);
+        sort = readBoolean(in);
+        libraryComparator = readComparator(in);
+
+        showLicense = readBoolean(in);
+        showLicenseDialog = readBoolean(in);
+        showVersion = readBoolean(in);
+        showLoadingProgress = in.readByte() != 0;
+
+        aboutShowIcon = readBoolean(in);
+        aboutVersionString = in.readString();
+        aboutAppName = in.readString();
+        aboutShowVersion = readBoolean(in);
+        aboutDescription = in.readString();
+        aboutShowVersionName = readBoolean(in);
+        aboutShowVersionCode = readBoolean(in);
+
+        aboutAppSpecial1 = in.readString();
+        aboutAppSpecial1Description = in.readString();
+        aboutAppSpecial2 = in.readString();
+        aboutAppSpecial2Description = in.readString();
+        aboutAppSpecial3 = in.readString();
+        aboutAppSpecial3Description = in.readString();
+
+        activityTheme = in.readByte() != 0 ? in.readInt() : null;
+        activityTitle = in.readString();
+        activityColor = in.readParcelable(Colors.class.getClassLoader());
+        String activityStyleName = in.readString();
+        activityStyle = activityStyleName != null ? Libs.ActivityStyle.valueOf(activityStyleName) : null;
+
+        String libTaskExecutorName = in.readString();
+        libTaskExecutor = libTaskExecutorName != null ? LibTaskExecutor.valueOf(libTaskExecutorName) : null;
+
+        libraryModification = readLibraryModification(in);
+
+        String ownLibsActivityClassName = in.readString();
+        if (ownLibsActivityClassName != null) {
+            try {
+                ownLibsActivityClass = Class.forName(ownLibsActivityClassName);
+            } catch (ClassNotFoundException ex) {
+                Log.e("AboutLibraries", "Failed to restore the LibsActivity class " + ownLibsActivityClassName);
+            }
+        } else {
+            ownLibsActivityClass = null;
+        }
+
+        prefetchId = in.readString();
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeStringArray(fields);
+        dest.writeStringArray(internalLibraries);
+        dest.writeStringArray(excludeLibraries);
+
+        writeBoolean(dest, autoDetect);
+        writeBoolean(dest, checkCachedDetection);
+        writeBoolean(dest, dexDetection);
+        writeBoolean(dest, useCatalog);
+        writeBoolean(dest, useCache);
+        writeBoolean(dest, useSnapshot);
+        writeBoolean(dest, sort);
+        writeComparator(dest, flags, libraryComparator);
+
+        writeBoolean(dest, showLicense);
+        writeBoolean(dest, showLicenseDialog);
+        writeBoolean(dest, showVersion);
+        dest.writeByte((byte) (showLoadingProgress ? 1 : 0));
+
+        writeBoolean(dest, aboutShowIcon);
+        dest.writeString(aboutVersionString);
+        dest.writeString(aboutAppName);
+        writeBoolean(dest, aboutShowVersion);
+        dest.writeString(aboutDescription);
+        writeBoolean(dest, aboutShowVersionName);
+        writeBoolean(dest, aboutShowVersionCode);
+
+        dest.writeString(aboutAppSpecial1);
+        dest.writeString(aboutAppSpecial1Description);
+        dest.writeString(aboutAppSpecial2);
+        dest.writeString(aboutAppSpecial2Description);
+        dest.writeString(aboutAppSpecial3);
+        dest.writeString(aboutAppSpecial3Description);
+
+        dest.writeByte((byte) (activityTheme != null ? 1 : 0));
+        if (activityTheme != null) {
+            dest.writeInt(activityTheme);
+        }
+        dest.writeString(activityTitle);
+        dest.writeParcelable(activityColor, flags);
+        dest.writeString(activityStyle != null ? activityStyle.name() : null);
+
+        dest.writeString(libTaskExecutor != null ? libTaskExecutor.name() : null);
+
+        writeLibraryModification(dest, libraryModification);
+
+        dest.writeString(ownLibsActivityClass != null ? ownLibsActivityClass.getName() : null);
+
+        dest.writeString(prefetchId);
+    }
+
+    /**
+     * @return an independent copy of this builder, made by parcelling it. The transient loaderExecutor is not copied
+     */
+    LibsBuilder copy() {
+        Parcel parcel = Parcel.obtain();
+        try {
+            writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            return CREATOR.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    /**
+     * @return the parcelled state of this builder, equal for builders with the same configuration. The transient
+     * loaderExecutor is not part of it
+     */
+    byte[] marshall() {
+        Parcel parcel = Parcel.obtain();
+        try {
+            writeToParcel(parcel, 0);
+            return parcel.marshall();
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<LibsBuilder> CREATOR = new Creator<LibsBuilder>() {
+        @Override
+        public LibsBuilder createFromParcel(Parcel in) {
+            return new LibsBuilder(in);
+        }
+
+        @Override
+        public LibsBuilder[] newArray(int size) {
+            return new LibsBuilder[size];
+        }
+    };
+
+    private static void writeBoolean(Parcel dest, Boolean value) {
+        dest.writeByte((byte) (value == null ? -1 : value ? 1 : 0));
+    }
+
+    private static Boolean readBoolean(Parcel in) {
+        byte value = in.readByte();
+        return value == -1 ? null : value == 1;
+    }
+
+    private static final byte COMPARATOR_NONE = 0;
+    private static final byte COMPARATOR_PARCELABLE = 1;
+    private static final byte COMPARATOR_SERIALIZABLE = 2;
+
+    /**
+     * comparators are written as Parcelable if possible, otherwise they have to be Serializable
+     */
+    private static void writeComparator(Parcel dest, int flags, Comparator<Library> comparator) {
+        if (comparator == null) {
+            dest.writeByte(COMPARATOR_NONE);
+        } else if (comparator instanceof Parcelable) {
+            dest.writeByte(COMPARATOR_PARCELABLE);
+            dest.writeParcelable((Parcelable) comparator, flags);
+        } else if (comparator instanceof Serializable) {
+            dest.writeByte(COMPARATOR_SERIALIZABLE);
+            dest.writeSerializable((Serializable) comparator);
+        } else {
+            throw new IllegalStateException("The libraryComparator has to be Parcelable or Serializable");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparator<Library> readComparator(Parcel in) {
+        switch (in.readByte()) {
+            case COMPARATOR_PARCELABLE:
+                return (Comparator<Library>) in.readParcelable(LibsBuilder.class.getClassLoader());
+            case COMPARATOR_SERIALIZABLE:
+                return (Comparator<Library>) in.readSerializable();
+            default:
+                return null;
+        }
+    }
+
+    private static void writeLibraryModification(Parcel dest, HashMap<String, HashMap<String, String>> libraryModification) {
+        if (libraryModification == null) {
+            dest.writeInt(-1);
+            return;
+        }
+        dest.writeInt(libraryModification.size());
+        //sorted, so equally configured builders are written the same way (see marshall())
+        for (Map.Entry<String, HashMap<String, String>> entry : new TreeMap<>(libraryModification).entrySet()) {
+            dest.writeString(entry.getKey());
+            HashMap<String, String> modifications = entry.getValue();
+            if (modifications == null) {
+                dest.writeInt(-1);
+                continue;
+            }
+            dest.writeInt(modifications.size());
+            for (Map.Entry<String, String> modification : new TreeMap<>(modifications).entrySet()) {
+                dest.writeString(modification.getKey());
+                dest.writeString(modification.getValue());
+            }
+        }
+    }
+
+    private static HashMap<String, HashMap<String, String>> readLibraryModification(Parcel in) {
+        int size = in.readInt();
+        if (size == -1) {
+            return null;
+        }
+        HashMap<String, HashMap<String, String>> libraryModification = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            String key = in.readString();
+            int modificationsSize = in.readInt();
+            HashMap<String, String> modifications = null;
+            if (modificationsSize != -1) {
+                modifications = new HashMap<>(modificationsSize * 2);
+                for (int j = 0; j < modificationsSize; j++) {
+                    modifications.put(in.readString(), in.readString());
+                }
+            }
+            libraryModification.put(key, modifications);
+        }
+        return libraryModification;
+    }
+
     /**
      * Builder method to pass the an own LibsActivity.
      *
@@ -145,6 +406,56 @@ public class LibsBuilder implements Serializable {
         return this;
     }
 
+    /**
+     * Builder method to autodetect the libraries by scanning the dex files of the APK, instead of loading the classpath of every library (default: disabled)
+     * If the APK can't be scanned the classpaths are loaded as before
+     *
+     * @param dexDetection enabled or disabled
+     * @return this
+     */
+    public LibsBuilder withDexDetection(boolean dexDetection) {
+        this.dexDetection = dexDetection;
+        return this;
+    }
+
+    /**
+     * Builder method to read the definitions from the precompiled catalog (default: disabled)
+     * This avoids resolving every string via its resource identifier. The catalog is generated by gradle-aboutlibraries.gradle
+     * with ext.aboutLibrariesCatalog = true, without it the definitions are read from the resources.
+     * NOTE: Only the default strings are part of the catalog, translated strings of the definitions are ignored in this mode.
+     *
+     * @param useCatalog enabled or disabled
+     * @return this
+     */
+    public LibsBuilder withCatalog(boolean useCatalog) {
+        this.useCatalog = useCatalog;
+        return this;
+    }
+
+    /**
+     * Builder method to disable the process wide cache of the loaded libraries (default: enabled)
+     * If enabled the libraries are only loaded once per configuration, opening the screen again reuses them
+     *
+     * @param useCache enabled or disabled
+     * @return this
+     */
+    public LibsBuilder withCacheEnabled(boolean useCache) {
+        this.useCache = useCache;
+        return this;
+    }
+
+    /**
+     * Builder method to disable the persisted snapshot of the prepared libraries (default: enabled)
+     * If enabled the sorted libraries are stored in the cache dir, the next cold start reads them from there instead of preparing them again
+     *
+     * @param useSnapshot enabled or disabled
+     * @return this
+     */
+    public LibsBuilder withSnapshotEnabled(boolean useSnapshot) {
+        this.useSnapshot = useSnapshot;
+        return this;
+    }
+
     /**
      * Builder method to disable sort (default: enabled)
      *
@@ -471,8 +782,35 @@ public class LibsBuilder implements Serializable {
     }
 
     /**
-     * Builder method to define a custom callback which is invoked every time the LibraryTask gets executed.
-     * This interface is called on a LibraryTask's start and end. Make sure the class which implements the
+     * Builder method to load the libraries on a custom Executor, e.g. a bounded pool of your app (default: the AsyncTask executor defined by the LibTaskExecutor)
+     * The results are still delivered on the main thread.
+     * NOTE: The executor can't be parcelled, it is used by the fragments created by this builder and by prefetch(). A started LibsActivity uses the LibTaskExecutor,
+     * and so does a fragment once its arguments were parcelled, e.g. after it was recreated with its Activity
+     *
+     * @param loaderExecutor the executor to use, or null to use the LibTaskExecutor
+     * @return this
+     */
+    public LibsBuilder withLoaderExecutor(Executor loaderExecutor) {
+        this.loaderExecutor = loaderExecutor;
+        return this;
+    }
+
+    /**
+     * Builder method to load and autoDetect the library definitions in parallel on the given Executor (default: sequential)
+     * The order of the libraries stays the same. The loading thread takes part in the work, so it is safe to
+     * pass the executor the libraries are loaded on (e.g. AsyncTask.THREAD_POOL_EXECUTOR)
+     *
+     * @param parallelExecutor the executor to use, or null to load sequentially
+     * @return this
+     */
+    public LibsBuilder withParallelExecutor(Executor parallelExecutor) {
+        LibsConfiguration.getInstance().setParallelExecutor(parallelExecutor);
+        return this;
+    }
+
+    /**
+     * Builder method to define a custom callback which is invoked every time the libraries get loaded.
+     * This interface is called on the start and end of the loading. Make sure the class which implements the
      * LibTaskCallback is Serializable.
      *
      * @param libTaskCallback
@@ -500,30 +838,81 @@ public class LibsBuilder implements Serializable {
 
 
     private void preCheck() {
-        if (fields == null) {
+        if (fields == null && GenericsUtil.getGeneratedFields() == null) {
             Log.w("AboutLibraries", "Have you missed to call withFields(R.string.class.getFields())? - autoDetect won't work - https://github.com/mikepenz/AboutLibraries/wiki/HOWTO:-Fragment");
         }
     }
 
     /**
-     * builder to build an adapter out of the given information ;D
+     * @return the executor to load the libraries on, the custom loader executor or the AsyncTask executor defined by the LibTaskExecutor
+     */
+    Executor getLoaderExecutor() {
+        if (loaderExecutor != null) {
+            return loaderExecutor;
+        }
+        switch (libTaskExecutor) {
+            case THREAD_POOL_EXECUTOR:
+                return AsyncTask.THREAD_POOL_EXECUTOR;
+            case SERIAL_EXECUTOR:
+            case DEFAULT_EXECUTOR:
+            default:
+                //AsyncTask.execute() uses the serial executor too
+                return AsyncTask.SERIAL_EXECUTOR;
+        }
+    }
+
+    /**
+     * helper to create the Libs instance with the fields and the loading mode of this builder
+     *
+     * @param context  the current context
+     * @param listener the listener to pass the parsed libraries to, or null
+     * @return the Libs instance
+     */
+    Libs buildLibs(Context context, Libs.ParseListener listener) {
+        String[] libsFields = fields == null ? GenericsUtil.getFields(context) : fields;
+        LibraryCatalog catalog = useCatalog ? LibraryCatalog.getInstance(context) : null;
+        return new Libs(context, libsFields, catalog, LibsConfiguration.getInstance().getParallelExecutor(), listener);
+    }
+
+    /**
+     * helper to get the Libs instance with the modifications of this builder applied, out of the cache if enabled
      *
      * @param context the current context
-     * @return a LibsRecyclerViewAdapter with the libraries
+     * @return the Libs instance
      */
-    public FastAdapter adapter(Context context) {
-        Libs libs;
-        if (fields == null) {
-            libs = new Libs(context);
-        } else {
-            libs = new Libs(context, fields);
-        }
+    Libs obtainLibs(Context context) {
+        return obtainLibs(context, null);
+    }
 
+    /**
+     * helper to get the Libs instance with the modifications of this builder applied, out of the cache if enabled
+     *
+     * @param context  the current context
+     * @param listener the listener to pass the libraries to while they are parsed, not called if they are cached
+     * @return the Libs instance
+     */
+    Libs obtainLibs(Context context, Libs.ParseListener listener) {
+        if (useCache) {
+            return LibsCache.get(context, this, listener);
+        }
+        LibsCache.registerCallbacks(context);
+        Libs libs = buildLibs(context, listener);
         //apply modifications
         libs.modifyLibraries(libraryModification);
+        return libs;
+    }
+
+    /**
+     * builder to build an adapter out of the given information ;D
+     *
+     * @param context the current context
+     * @return a LibsRecyclerViewAdapter with the libraries
+     */
+    public FastAdapter adapter(Context context) {
+        Libs libs = obtainLibs(context);
 
         //fetch the libraries and sort if a comparator was set
-        ArrayList<Library> libraries = libs.prepareLibraries(context, internalLibraries, excludeLibraries, autoDetect, checkCachedDetection, sort);
+        ArrayList<Library> libraries = libs.prepareLibraries(context, internalLibraries, excludeLibraries, autoDetect, checkCachedDetection, dexDetection, sort);
 
         //prepare adapter
         ItemAdapter itemAdapter = new ItemAdapter();
@@ -539,6 +928,22 @@ public class LibsBuilder implements Serializable {
         return fastAdapter;
     }
 
+    /**
+     * Starts loading, detecting and sorting the libraries in the background (once the main thread is idle), so they
+     * are ready when the screen opens. The LibsActivity / LibsSupportFragment / LibsFragment created by this builder
+     * afterwards uses the prefetched result, or waits for it if it is still loading.
+     * Call this after the builder is configured, each prefetch is used by one screen only. If the builder is changed
+     * with any with*() method afterwards, the prefetch is discarded and the screen loads the libraries itself (a
+     * changed loaderExecutor is not detected, the prefetch keeps loading on the executor it was started with).
+     *
+     * @param ctx the current context
+     * @return this
+     */
+    public LibsBuilder prefetch(Context ctx) {
+        LibsPrefetch.prefetch(ctx, this);
+        return this;
+    }
+
     /**
      * intent() method to build and create the intent with the set params
      *
@@ -557,7 +962,7 @@ public class LibsBuilder implements Serializable {
         preCheck();
 
         Intent i = new Intent(ctx, clazz);
-        i.putExtra("data", this);
+        i.putExtra("data", (Parcelable) this);
         i.putExtra(Libs.BUNDLE_THEME, this.activityTheme);
 
         if (this.activityTitle != null) {
@@ -565,7 +970,7 @@ public class LibsBuilder implements Serializable {
         }
 
         if (this.activityColor != null) {
-            i.putExtra(Libs.BUNDLE_COLORS, this.activityColor);
+            i.putExtra(Libs.BUNDLE_COLORS, (Parcelable) this.activityColor);
         }
 
         if (this.activityStyle != null) {
@@ -597,7 +1002,7 @@ public class LibsBuilder implements Serializable {
      */
     public LibsSupportFragment supportFragment() {
         Bundle bundle = new Bundle();
-        bundle.putSerializable("data", this);
+        bundle.putParcelable("data", this);
 
         LibsSupportFragment fragment = new LibsSupportFragment();
         fragment.setArguments(bundle);
@@ -612,7 +1017,7 @@ public class LibsBuilder implements Serializable {
      */
     public LibsFragment fragment() {
         Bundle bundle = new Bundle();
-        bundle.putSerializable("data", this);
+        bundle.putParcelable("data", this);
 
         LibsFragment fragment = new LibsFragment();
         fragment.setArguments(bundle);
@@ -0,0 +1,181 @@
+package com.mikepenz.aboutlibraries;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+
+import com.mikepenz.aboutlibraries.util.ResourceResolver;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A process wide cache for the Libs instances used by the LibsBuilder, so opening the libraries screen
+ * again does not parse all definitions again.
+ * The cache is keyed by the fields and the configuration of the builder and released if the system is running
+ * low on memory. Every caller gets its own copy of the cached instance, so changing the libraries of one screen
+ * does not change them for the others.
+ */
+public class LibsCache {
+    private static final HashMap<Key, Libs> CACHE = new HashMap<>();
+
+    private static boolean callbacksRegistered = false;
+
+    private LibsCache() {
+    }
+
+    /**
+     * get a Libs instance for the given builder. The instance is created (with the modifications of the builder applied) if it is not cached yet
+     *
+     * @param ctx     the current context
+     * @param builder the builder defining the fields and configuration
+     * @return a copy of the cached Libs instance, owned by the caller
+     */
+    public static Libs get(Context ctx, LibsBuilder builder) {
+        return get(ctx, builder, null);
+    }
+
+    /**
+     * get a Libs instance for the given builder, see get(Context, LibsBuilder)
+     *
+     * @param ctx      the current context
+     * @param builder  the builder defining the fields and configuration
+     * @param listener the listener to pass the libraries to while they are parsed, not called if they are cached
+     * @return a copy of the cached Libs instance, owned by the caller
+     */
+    static Libs get(Context ctx, LibsBuilder builder, Libs.ParseListener listener) {
+        Key key = new Key(ctx, builder);
+
+        synchronized (CACHE) {
+            Libs libs = CACHE.get(key);
+            if (libs != null) {
+                return libs.copy();
+            }
+        }
+
+        //create outside the lock, loading can take a while
+        Libs libs = builder.buildLibs(ctx, listener);
+        //apply modifications
+        libs.modifyLibraries(builder.libraryModification);
+
+        registerCallbacks(ctx);
+        synchronized (CACHE) {
+            Libs cached = CACHE.get(key);
+            if (cached != null) {
+                //another thread was faster
+                return cached.copy();
+            }
+            //the cached instance is never handed out, so nobody can change it
+            CACHE.put(key, libs);
+        }
+        return libs.copy();
+    }
+
+    /**
+     * removes all cached Libs instances
+     */
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    /**
+     * releases the cache (and the resolved resource identifiers) depending on the trim level. This is called
+     * automatically, as the cache registers itself for the ComponentCallbacks of the application
+     *
+     * @param level the level passed to ComponentCallbacks2.onTrimMemory()
+     */
+    public static void onTrimMemory(int level) {
+        //UI_HIDDEN alone is no reason to drop it, the user may just come back to the screen
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW && level != ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            clear();
+            ResourceResolver.clear();
+        }
+    }
+
+    /**
+     * registers the ComponentCallbacks releasing the cache once, also called if the cache is disabled as the
+     * resolved resource identifiers are released by them too
+     *
+     * @param ctx the current context
+     */
+    static void registerCallbacks(Context ctx) {
+        synchronized (CACHE) {
+            if (callbacksRegistered) {
+                return;
+            }
+            callbacksRegistered = true;
+        }
+        ctx.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks2() {
+            @Override
+            public void onTrimMemory(int level) {
+                LibsCache.onTrimMemory(level);
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                clear();
+                ResourceResolver.clear();
+            }
+        });
+    }
+
+    /**
+     * identifies a Libs instance. The values are locale dependent, so the locale is part of the key too
+     */
+    private static class Key {
+        private final String[] fields;
+        private final boolean useCatalog;
+        private final HashMap<String, HashMap<String, String>> libraryModification;
+        private final Locale locale;
+
+        Key(Context ctx, LibsBuilder builder) {
+            this.fields = builder.fields != null ? builder.fields.clone() : null;
+            this.useCatalog = builder.useCatalog;
+            this.libraryModification = copy(builder.libraryModification);
+            this.locale = ctx.getResources().getConfiguration().locale;
+        }
+
+        private static HashMap<String, HashMap<String, String>> copy(HashMap<String, HashMap<String, String>> libraryModification) {
+            if (libraryModification == null) {
+                return null;
+            }
+            HashMap<String, HashMap<String, String>> copy = new HashMap<>();
+            for (Map.Entry<String, HashMap<String, String>> entry : libraryModification.entrySet()) {
+                copy.put(entry.getKey(), entry.getValue() == null ? null : new HashMap<>(entry.getValue()));
+            }
+            return copy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return useCatalog == key.useCatalog
+                    && Arrays.equals(fields, key.fields)
+                    && (libraryModification == null ? key.libraryModification == null : libraryModification.equals(key.libraryModification))
+                    && (locale == null ? key.locale == null : locale.equals(key.locale));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Arrays.hashCode(fields);
+            result = 31 * result + (useCatalog ? 1 : 0);
+            result = 31 * result + (libraryModification != null ? libraryModification.hashCode() : 0);
+            result = 31 * result + (locale != null ? locale.hashCode() : 0);
+            return result;
+        }
+    }
+}
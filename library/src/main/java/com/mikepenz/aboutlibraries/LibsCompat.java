@@ -20,7 +20,7 @@ public class LibsCompat {
     @TargetApi(Build.VERSION_CODES.HONEYCOMB)
     public static LibsFragment fragment(LibsBuilder libsBuilder) {
         Bundle bundle = new Bundle();
-        bundle.putSerializable("data", libsBuilder);
+        bundle.putParcelable("data", libsBuilder);
 
         LibsFragment fragment = new LibsFragment();
         fragment.setArguments(bundle);
@@ -8,6 +8,8 @@ import com.mikepenz.aboutlibraries.entity.Library;
 import com.mikepenz.aboutlibraries.ui.item.HeaderItem;
 import com.mikepenz.aboutlibraries.ui.item.LibraryItem;
 
+import java.util.concurrent.Executor;
+
 /**
  * Created by mikepenz on 20.05.15.
  */
@@ -104,6 +106,16 @@ public class LibsConfiguration {
         this.mLibTaskCallback = mLibTaskCallback;
     }
 
+    private Executor mParallelExecutor;
+
+    public Executor getParallelExecutor() {
+        return mParallelExecutor;
+    }
+
+    public void setParallelExecutor(Executor parallelExecutor) {
+        this.mParallelExecutor = parallelExecutor;
+    }
+
     /**
      * helper to reset a current configuration
      * is only useful for the sample app
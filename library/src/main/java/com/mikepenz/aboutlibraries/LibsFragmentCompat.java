@@ -1,16 +1,12 @@
 package com.mikepenz.aboutlibraries;
 
 import android.content.Context;
-import android.content.pm.ApplicationInfo;
-import android.content.pm.PackageInfo;
-import android.content.pm.PackageManager;
 import android.graphics.drawable.Drawable;
 import android.os.AsyncTask;
 import android.os.Bundle;
 import android.support.v7.widget.DefaultItemAnimator;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
-import android.text.TextUtils;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -20,13 +16,16 @@ import com.mikepenz.aboutlibraries.entity.Library;
 import com.mikepenz.aboutlibraries.ui.item.HeaderItem;
 import com.mikepenz.aboutlibraries.ui.item.LibraryItem;
 import com.mikepenz.aboutlibraries.ui.item.LoaderItem;
+import com.mikepenz.aboutlibraries.util.ThemeColors;
 import com.mikepenz.fastadapter.FastAdapter;
+import com.mikepenz.fastadapter.IItem;
 import com.mikepenz.fastadapter.adapters.ItemAdapter;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Created by mikepenz on 02.11.15.
@@ -36,8 +35,10 @@ public class LibsFragmentCompat {
     private ItemAdapter mItemAdapter;
 
     private LibsBuilder builder = null;
-    private ArrayList<Library> libraries;
     private Comparator<Library> comparator;
+    private HeaderItem headerItem;
+    private ThemeColors themeColors;
+    private LibsLoader.CancellationToken mLoaderToken;
     private LibraryTask mLibTask;
 
     /**
@@ -53,7 +54,12 @@ public class LibsFragmentCompat {
 
     public View onCreateView(Context context, LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState, Bundle arguments) {
         if (arguments != null) {
-            builder = (LibsBuilder) arguments.getSerializable("data");
+            //the builder is passed as Parcelable, older code may still pass it Serializable
+            arguments.setClassLoader(LibsBuilder.class.getClassLoader());
+            Object data = arguments.get("data");
+            if (data instanceof LibsBuilder) {
+                builder = (LibsBuilder) data;
+            }
         } else {
             Log.e("AboutLibraries", "The AboutLibraries fragment can't be build without the bundle containing the LibsBuilder");
         }
@@ -81,6 +87,9 @@ public class LibsFragmentCompat {
         }
 
         if (builder != null) {
+            //the colors of the items only depend on the theme, resolve them once for all items
+            themeColors = ThemeColors.resolve(mRecyclerView.getContext());
+
             mItemAdapter = new ItemAdapter();
             mAdapter = FastAdapter.with(mItemAdapter);
             mRecyclerView.setAdapter(mAdapter);
@@ -101,12 +110,95 @@ public class LibsFragmentCompat {
     public void onViewCreated(View view, Bundle savedInstanceState) {
         //load the data (only possible if we were able to get the Arguments
         if (view.getContext() != null && builder != null) {
+            if (isExecuteLibTaskOverridden()) {
+                //a subclass still executes the task on its own, it fires the callbacks
+                mLibTask = new LibraryTask(view.getContext().getApplicationContext());
+                executeLibTask(mLibTask);
+                return;
+            }
+
+            //started loading
+            if (LibsConfiguration.getInstance().getLibTaskCallback() != null) {
+                LibsConfiguration.getInstance().getLibTaskCallback().onLibTaskStarted();
+            }
+
+            //use the prefetched libraries if the builder was prefetched (and not changed since)
+            final LibsPrefetch prefetch = LibsPrefetch.take(builder);
+            if (prefetch != null) {
+                //its about values are filled by the prefetch
+                builder = prefetch.getBuilder();
+            }
+
             //fill the fragment with the content
-            mLibTask = new LibraryTask(view.getContext().getApplicationContext());
-            executeLibTask(mLibTask);
+            LibsLoader.Listener listener = createLoaderListener(prefetch);
+            if (prefetch != null) {
+                mLoaderToken = prefetch.attach(listener);
+            } else {
+                mLoaderToken = LibsLoader.load(view.getContext(), builder, comparator, builder.getLoaderExecutor(), listener);
+            }
+        }
+    }
+
+    /**
+     * @param prefetch the prefetch the libraries are delivered by, or null
+     * @return the listener filling the fragment with the loaded content
+     */
+    private LibsLoader.Listener createLoaderListener(final LibsPrefetch prefetch) {
+        return new LibsLoader.Listener() {
+            @Override
+            public void onHeaderLoaded(String versionName, Integer versionCode, Drawable icon) {
+                //add this cool thing to the headerView of our listView, in front of the loader
+                headerItem = new HeaderItem().withLibsBuilder(builder).withThemeColors(themeColors).withAboutVersionName(versionName).withAboutVersionCode(versionCode).withAboutIcon(icon);
+                mItemAdapter.add(0, Collections.singletonList(headerItem));
+            }
+
+            @Override
+            public void onLibrariesAdded(List<Library> libraries) {
+                //shown in front of the loader until the complete list replaces them
+                addItems(libraries);
+            }
+
+            @Override
+            public void onLibrariesLoaded(List<Library> libraries) {
+                if (prefetch != null && comparator != null) {
+                    //the prefetch did not know the comparator of this fragment
+                    libraries = new ArrayList<>(libraries);
+                    Collections.sort(libraries, comparator);
+                }
+
+                //the sorted libraries replace the loader and the libraries added so far
+                setItems(libraries);
+                mLoaderToken = null;
+
+                //finished loading
+                if (LibsConfiguration.getInstance().getLibTaskCallback() != null) {
+                    LibsConfiguration.getInstance().getLibTaskCallback().onLibTaskFinished(mItemAdapter);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return true if a subclass overrides executeLibTask(), the fragment then loads through it
+     */
+    private boolean isExecuteLibTaskOverridden() {
+        for (Class<?> c = getClass(); c != LibsFragmentCompat.class; c = c.getSuperclass()) {
+            try {
+                c.getDeclaredMethod("executeLibTask", LibraryTask.class);
+                return true;
+            } catch (NoSuchMethodException ignored) {
+            }
         }
+        return false;
     }
 
+    /**
+     * executes the task on the executor set with LibsBuilder.withLibTaskExecutor(). The fragment only loads through
+     * this method if a subclass overrides it, otherwise it loads with the LibsLoader directly
+     *
+     * @deprecated use LibsBuilder.withLoaderExecutor() to load on a custom executor
+     */
+    @Deprecated
     protected void executeLibTask(LibraryTask libraryTask) {
         if (libraryTask != null) {
             switch (builder.libTaskExecutor) {
@@ -124,6 +216,35 @@ public class LibsFragmentCompat {
         }
     }
 
+    private void setItems(List<Library> libraries) {
+        List<IItem> items = new ArrayList<>(libraries.size() + 2);
+        //Add the header
+        if (headerItem != null) {
+            items.add(headerItem);
+        }
+        //add the libs
+        for (Library library : libraries) {
+            items.add(createLibraryItem(library));
+        }
+        mItemAdapter.set(items);
+    }
+
+    private void addItems(List<Library> libraries) {
+        List<IItem> items = new ArrayList<>(libraries.size());
+        for (Library library : libraries) {
+            items.add(createLibraryItem(library));
+        }
+        //the loader stays the last item
+        int position = mItemAdapter.getAdapterItemCount();
+        if (position > 0 && mItemAdapter.getAdapterItem(position - 1) instanceof LoaderItem) {
+            position--;
+        }
+        mItemAdapter.add(position, items);
+    }
+
+    private LibraryItem createLibraryItem(Library library) {
+        return new LibraryItem().withLibrary(library).withLibsBuilder(builder).withThemeColors(themeColors);
+    }
 
     public void onDestroyView() {
         if (mLibTask != null) {
@@ -131,15 +252,20 @@ public class LibsFragmentCompat {
             mLibTask.setCtx(null);
             mLibTask = null;
         }
+        if (mLoaderToken != null) {
+            mLoaderToken.cancel();
+            mLoaderToken = null;
+        }
     }
 
+    /**
+     * @deprecated replaced by the LibsLoader. The task loads with the LibsLoader on its own thread and fills this fragment.
+     * If it is executed while the fragment is still loading, it takes over that load
+     */
+    @Deprecated
     public class LibraryTask extends AsyncTask<String, String, String> {
         Context ctx;
 
-        String versionName;
-        Integer versionCode;
-        Drawable icon = null;
-
         public LibraryTask(Context ctx) {
             this.ctx = ctx;
         }
@@ -150,157 +276,67 @@ public class LibsFragmentCompat {
 
         @Override
         protected void onPreExecute() {
-            //started loading
-            if (LibsConfiguration.getInstance().getLibTaskCallback() != null) {
+            if (mLoaderToken != null) {
+                //the fragment is still loading, onLibTaskStarted() was already fired for it
+                mLoaderToken.cancel();
+                mLoaderToken = null;
+            } else if (mLibTask != null && mLibTask != this && !mLibTask.isCancelled()) {
+                //same for a task which is still loading
+                mLibTask.cancel(true);
+            } else if (LibsConfiguration.getInstance().getLibTaskCallback() != null) {
+                //started loading
                 LibsConfiguration.getInstance().getLibTaskCallback().onLibTaskStarted();
             }
+            mLibTask = this;
         }
 
         @Override
         protected String doInBackground(String... strings) {
-            //init the Libs instance with fields if they were set
-            Libs libs;
-            if (builder.fields == null) {
-                libs = new Libs(ctx);
-            } else {
-                libs = new Libs(ctx, builder.fields);
-            }
-
-            //fill the builder with the information
-            builder.aboutShowIcon = extractBooleanBundleOrResource(ctx, libs, builder.aboutShowIcon, "aboutLibraries_description_showIcon");
-            builder.aboutShowVersion = extractBooleanBundleOrResource(ctx, libs, builder.aboutShowVersion, "aboutLibraries_description_showVersion");
-            builder.aboutShowVersionName = extractBooleanBundleOrResource(ctx, libs, builder.aboutShowVersionName, "aboutLibraries_description_showVersionName");
-            builder.aboutShowVersionCode = extractBooleanBundleOrResource(ctx, libs, builder.aboutShowVersionCode, "aboutLibraries_description_showVersionCode");
-
-            builder.aboutAppName = extractStringBundleOrResource(ctx, libs, builder.aboutAppName, "aboutLibraries_description_name");
-            builder.aboutDescription = extractStringBundleOrResource(ctx, libs, builder.aboutDescription, "aboutLibraries_description_text");
-
-            builder.aboutAppSpecial1 = extractStringBundleOrResource(ctx, libs, builder.aboutAppSpecial1, "aboutLibraries_description_special1_name");
-            builder.aboutAppSpecial1Description = extractStringBundleOrResource(ctx, libs, builder.aboutAppSpecial1Description, "aboutLibraries_description_special1_text");
-            builder.aboutAppSpecial2 = extractStringBundleOrResource(ctx, libs, builder.aboutAppSpecial2, "aboutLibraries_description_special2_name");
-            builder.aboutAppSpecial2Description = extractStringBundleOrResource(ctx, libs, builder.aboutAppSpecial2Description, "aboutLibraries_description_special2_text");
-            builder.aboutAppSpecial3 = extractStringBundleOrResource(ctx, libs, builder.aboutAppSpecial3, "aboutLibraries_description_special3_name");
-            builder.aboutAppSpecial3Description = extractStringBundleOrResource(ctx, libs, builder.aboutAppSpecial3Description, "aboutLibraries_description_special3_text");
-
-            //apply modifications
-            libs.modifyLibraries(builder.libraryModification);
-
-            //fetch the libraries and sort if a comparator was set
-            boolean doDefaultSort = (builder.sort && null == builder.libraryComparator && null == comparator);
-
-            libraries = libs.prepareLibraries(ctx, builder.internalLibraries, builder.excludeLibraries, builder.autoDetect, builder.checkCachedDetection, doDefaultSort);
-
-            if (comparator != null) {
-                Collections.sort(libraries, comparator);
-            } else if (builder.libraryComparator != null) {
-                Collections.sort(libraries, builder.libraryComparator);
+            Context context = ctx;
+            if (context == null || builder == null) {
+                return null;
             }
 
-            //load the data for the header
-            if (builder.aboutShowIcon != null && (builder.aboutShowVersion != null || builder.aboutShowVersionName != null || builder.aboutShowVersionCode)) {
-                //get the packageManager to load and read some values :D
-                PackageManager pm = ctx.getPackageManager();
-                //get the packageName
-                String packageName = ctx.getPackageName();
-                //Try to load the applicationInfo
-                ApplicationInfo appInfo = null;
-                PackageInfo packageInfo = null;
-                try {
-                    appInfo = pm.getApplicationInfo(packageName, 0);
-                    packageInfo = pm.getPackageInfo(packageName, 0);
-                } catch (Exception ex) {
+            final LibsLoader.Listener listener = createLoaderListener(null);
+            //the load runs right here, the stages are still delivered on the main thread
+            LibsLoader.load(context, builder, comparator, new Executor() {
+                @Override
+                public void execute(Runnable runnable) {
+                    runnable.run();
+                }
+            }, new LibsLoader.Listener() {
+                @Override
+                public void onHeaderLoaded(String versionName, Integer versionCode, Drawable icon) {
+                    if (!isCancelled()) {
+                        listener.onHeaderLoaded(versionName, versionCode, icon);
+                    }
                 }
 
-                //Set the Icon or hide it
-                if (builder.aboutShowIcon && appInfo != null) {
-                    icon = appInfo.loadIcon(pm);
+                @Override
+                public void onLibrariesAdded(List<Library> libraries) {
+                    if (!isCancelled()) {
+                        listener.onLibrariesAdded(libraries);
+                    }
                 }
 
-                //set the Version or hide it
-                versionName = null;
-                versionCode = null;
-                if (packageInfo != null) {
-                    versionName = packageInfo.versionName;
-                    versionCode = packageInfo.versionCode;
+                @Override
+                public void onLibrariesLoaded(List<Library> libraries) {
+                    if (!isCancelled()) {
+                        listener.onLibrariesLoaded(libraries);
+                    }
                 }
-            }
+            });
             return null;
         }
 
         @Override
         protected void onPostExecute(String s) {
-            //remove loader
-            mItemAdapter.clear();
-
-            //Add the header
-            if (builder.aboutShowIcon != null && (builder.aboutShowVersion != null || builder.aboutShowVersionName != null || builder.aboutShowVersionCode)) {
-                //add this cool thing to the headerView of our listView
-                mItemAdapter.add(new HeaderItem().withLibsBuilder(builder).withAboutVersionName(versionName).withAboutVersionCode(versionCode).withAboutIcon(icon));
-            }
-
-            //add the libs
-            List<LibraryItem> libraryItems = new ArrayList<>();
-            for (Library library : libraries) {
-                libraryItems.add(new LibraryItem().withLibrary(library).withLibsBuilder(builder));
-            }
-            mItemAdapter.add(libraryItems);
-
             super.onPostExecute(s);
-
-            //finished loading
-            if (LibsConfiguration.getInstance().getLibTaskCallback() != null) {
-                LibsConfiguration.getInstance().getLibTaskCallback().onLibTaskFinished(mItemAdapter);
-            }
-
             //forget the context
             ctx = null;
-        }
-    }
-
-    //
-
-    /**
-     * Helper to extract a boolean from a bundle or resource
-     *
-     * @param libs
-     * @param value
-     * @param resName
-     * @return
-     */
-    private Boolean extractBooleanBundleOrResource(Context ctx, Libs libs, Boolean value, String resName) {
-        Boolean result = null;
-        if (value != null) {
-            result = value;
-        } else {
-            String descriptionShowVersion = libs.getStringResourceByName(ctx, resName);
-            if (!TextUtils.isEmpty(descriptionShowVersion)) {
-                try {
-                    result = Boolean.parseBoolean(descriptionShowVersion);
-                } catch (Exception ex) {
-                }
-            }
-        }
-        return result;
-    }
-
-    /**
-     * Helper to extract a string from a bundle or resource
-     *
-     * @param libs
-     * @param value
-     * @param resName
-     * @return
-     */
-    private String extractStringBundleOrResource(Context ctx, Libs libs, String value, String resName) {
-        String result = null;
-        if (value != null) {
-            result = value;
-        } else {
-            String descriptionShowVersion = libs.getStringResourceByName(ctx, resName);
-            if (!TextUtils.isEmpty(descriptionShowVersion)) {
-                result = descriptionShowVersion;
+            if (mLibTask == this) {
+                mLibTask = null;
             }
         }
-        return result;
     }
 }
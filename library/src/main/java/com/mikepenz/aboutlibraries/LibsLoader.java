@@ -0,0 +1,350 @@
+package com.mikepenz.aboutlibraries;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.mikepenz.aboutlibraries.entity.Library;
+import com.mikepenz.aboutlibraries.util.HtmlCache;
+import com.mikepenz.aboutlibraries.util.Util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Loads everything the libraries screen shows on any Executor and delivers it on the main thread.
+ * <p>
+ * The load happens in stages, each one is delivered as soon as it is ready: the header information, the libraries
+ * which are shown without detection in batches while the definitions are parsed, and finally the complete sorted
+ * list of libraries. If the load fails, the libraries delivered so far are delivered as the complete list.
+ * A load can be cancelled with the returned CancellationToken, nothing is delivered afterwards.
+ */
+public class LibsLoader {
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    /**
+     * receives the stages of a load, all methods are called on the main thread
+     */
+    public interface Listener {
+        /**
+         * the information for the header is loaded. Only called if the header is shown
+         *
+         * @param versionName the versionName of the app or null
+         * @param versionCode the versionCode of the app or null
+         * @param icon        the icon of the app or null
+         */
+        void onHeaderLoaded(String versionName, Integer versionCode, Drawable icon);
+
+        /**
+         * libraries were parsed, which are shown without detection (the external ones and the internal ones set with
+         * withLibraries()). Called for each batch, the libraries are neither detected, modified nor sorted yet
+         *
+         * @param libraries the libraries of the batch
+         */
+        void onLibrariesAdded(List<Library> libraries);
+
+        /**
+         * the libraries were loaded, the load is finished. The list replaces all libraries added before
+         *
+         * @param libraries the sorted libraries, or the libraries added so far if the load failed
+         */
+        void onLibrariesLoaded(List<Library> libraries);
+    }
+
+    /**
+     * a token to cancel a load
+     */
+    public static class CancellationToken {
+        private volatile boolean cancelled = false;
+
+        /**
+         * cancels the load, the listener is not called anymore after this
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+
+    private LibsLoader() {
+    }
+
+    /**
+     * starts loading the libraries for the given builder. The about* values of the builder are filled as well
+     *
+     * @param ctx        the current context, only its application context is used
+     * @param builder    the builder defining what to load
+     * @param comparator a comparator to sort the libraries, or null to sort them as the builder defines
+     * @param executor   the executor to load on
+     * @param listener   the listener to deliver the stages to
+     * @return the token to cancel this load
+     */
+    public static CancellationToken load(Context ctx, final LibsBuilder builder, final Comparator<Library> comparator, Executor executor, final Listener listener) {
+        final Context appContext = ctx.getApplicationContext();
+        final CancellationToken token = new CancellationToken();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!token.isCancelled()) {
+                    loadInBackground(appContext, builder, comparator, token, listener);
+                }
+            }
+        });
+        return token;
+    }
+
+    private static void loadInBackground(Context ctx, LibsBuilder builder, Comparator<Library> comparator, CancellationToken token, Listener listener) {
+        //the libraries delivered before the load finished, they are kept if it fails
+        ArrayList<Library> added = new ArrayList<>();
+        try {
+            loadHeader(ctx, builder, token, listener);
+            if (!token.isCancelled()) {
+                loadLibraries(ctx, builder, comparator, token, listener, added);
+            }
+        } catch (Exception ex) {
+            Log.e("aboutlibraries", "Failed to load the libraries: " + ex.toString());
+            //nothing else is delivered, the fragment would show its loader forever
+            postLibraries(token, listener, added);
+        }
+    }
+
+    private static void loadHeader(Context ctx, LibsBuilder builder, CancellationToken token, final Listener listener) {
+        //fill the builder with the information
+        builder.aboutShowIcon = extractBooleanBundleOrResource(ctx, builder.aboutShowIcon, "aboutLibraries_description_showIcon");
+        builder.aboutShowVersion = extractBooleanBundleOrResource(ctx, builder.aboutShowVersion, "aboutLibraries_description_showVersion");
+        builder.aboutShowVersionName = extractBooleanBundleOrResource(ctx, builder.aboutShowVersionName, "aboutLibraries_description_showVersionName");
+        builder.aboutShowVersionCode = extractBooleanBundleOrResource(ctx, builder.aboutShowVersionCode, "aboutLibraries_description_showVersionCode");
+
+        builder.aboutAppName = extractStringBundleOrResource(ctx, builder.aboutAppName, "aboutLibraries_description_name");
+        builder.aboutDescription = extractStringBundleOrResource(ctx, builder.aboutDescription, "aboutLibraries_description_text");
+
+        builder.aboutAppSpecial1 = extractStringBundleOrResource(ctx, builder.aboutAppSpecial1, "aboutLibraries_description_special1_name");
+        builder.aboutAppSpecial1Description = extractStringBundleOrResource(ctx, builder.aboutAppSpecial1Description, "aboutLibraries_description_special1_text");
+        builder.aboutAppSpecial2 = extractStringBundleOrResource(ctx, builder.aboutAppSpecial2, "aboutLibraries_description_special2_name");
+        builder.aboutAppSpecial2Description = extractStringBundleOrResource(ctx, builder.aboutAppSpecial2Description, "aboutLibraries_description_special2_text");
+        builder.aboutAppSpecial3 = extractStringBundleOrResource(ctx, builder.aboutAppSpecial3, "aboutLibraries_description_special3_name");
+        builder.aboutAppSpecial3Description = extractStringBundleOrResource(ctx, builder.aboutAppSpecial3Description, "aboutLibraries_description_special3_text");
+
+        //load the data for the header, it does not depend on the libraries so it is shown right away
+        if (builder.aboutShowIcon != null && (builder.aboutShowVersion != null || builder.aboutShowVersionName != null || builder.aboutShowVersionCode)) {
+            //get the packageManager to load and read some values :D
+            PackageManager pm = ctx.getPackageManager();
+            //get the packageName
+            String packageName = ctx.getPackageName();
+            //Try to load the applicationInfo
+            ApplicationInfo appInfo = null;
+            PackageInfo packageInfo = null;
+            try {
+                appInfo = pm.getApplicationInfo(packageName, 0);
+                packageInfo = pm.getPackageInfo(packageName, 0);
+            } catch (Exception ex) {
+            }
+
+            //Set the Icon or hide it
+            Drawable icon = null;
+            if (builder.aboutShowIcon && appInfo != null) {
+                icon = appInfo.loadIcon(pm);
+            }
+
+            //set the Version or hide it
+            String versionName = null;
+            Integer versionCode = null;
+            if (packageInfo != null) {
+                versionName = packageInfo.versionName;
+                versionCode = packageInfo.versionCode;
+            }
+
+            final String finalVersionName = versionName;
+            final Integer finalVersionCode = versionCode;
+            final Drawable finalIcon = icon;
+            post(token, new Runnable() {
+                @Override
+                public void run() {
+                    listener.onHeaderLoaded(finalVersionName, finalVersionCode, finalIcon);
+                }
+            });
+        }
+    }
+
+    private static void loadLibraries(Context ctx, LibsBuilder builder, Comparator<Library> comparator, CancellationToken token, Listener listener, ArrayList<Library> added) {
+        //fetch the libraries and sort if a comparator was set
+        boolean doDefaultSort = (builder.sort && null == builder.libraryComparator && null == comparator);
+
+        //the snapshot is written from the same detection which would be repeated, unless the detection should run again
+        boolean useSnapshot = builder.useSnapshot && (!builder.autoDetect || builder.checkCachedDetection);
+        long snapshotKey = useSnapshot ? LibsSnapshot.key(ctx, builder, doDefaultSort) : 0;
+        if (useSnapshot) {
+            ArrayList<Library> libraries = LibsSnapshot.read(ctx, snapshotKey);
+            if (libraries != null) {
+                //comparators can't be part of the key, they are applied again
+                sortLibraries(builder, comparator, libraries);
+                HtmlCache.prepareLibraryDescriptions(libraries);
+                postLibraries(token, listener, libraries);
+                return;
+            }
+        }
+
+        //init the Libs instance with fields if they were set, the libraries are shown while they are parsed
+        Libs libs = builder.obtainLibs(ctx, createParseListener(builder, token, listener, added));
+
+        if (token.isCancelled()) {
+            return;
+        }
+
+        ArrayList<Library> libraries = libs.prepareLibraries(ctx, builder.internalLibraries, builder.excludeLibraries, builder.autoDetect, builder.checkCachedDetection, builder.dexDetection, doDefaultSort);
+        //the snapshot keeps the order without the comparators, as they are applied again when it is read
+        List<Library> snapshotLibraries = useSnapshot ? new ArrayList<>(libraries) : null;
+        sortLibraries(builder, comparator, libraries);
+        //parse the descriptions here, so binding the items doesn't have to
+        HtmlCache.prepareLibraryDescriptions(libraries);
+        postLibraries(token, listener, libraries);
+
+        if (snapshotLibraries != null) {
+            //written after the libraries are delivered, the list is shown without waiting for it
+            try {
+                LibsSnapshot.write(ctx, snapshotKey, snapshotLibraries);
+            } catch (Exception ex) {
+                Log.w("aboutlibraries", "Failed to write the libraries snapshot: " + ex.toString());
+            }
+        }
+    }
+
+    /**
+     * @param added the list the delivered libraries are added to
+     * @return a listener delivering the parsed libraries which are shown without detection
+     */
+    private static Libs.ParseListener createParseListener(final LibsBuilder builder, final CancellationToken token, final Listener listener, final ArrayList<Library> added) {
+        return new Libs.ParseListener() {
+            @Override
+            public void onLibrariesParsed(List<Library> libraries) {
+                if (token.isCancelled()) {
+                    return;
+                }
+                final ArrayList<Library> batch = new ArrayList<>(libraries.size());
+                for (Library library : libraries) {
+                    if (isShownWithoutDetection(builder, library)) {
+                        //the libraries still belong to the Libs instance, which may be cached or modified afterwards
+                        batch.add(library.copy());
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    HtmlCache.prepareLibraryDescriptions(batch);
+                    added.addAll(batch);
+                    post(token, new Runnable() {
+                        @Override
+                        public void run() {
+                            listener.onLibrariesAdded(batch);
+                        }
+                    });
+                }
+            }
+        };
+    }
+
+    /**
+     * @return true if the library is shown without detection, see Libs.prepareLibraries()
+     */
+    private static boolean isShownWithoutDetection(LibsBuilder builder, Library library) {
+        if (contains(builder.excludeLibraries, library.getDefinedName())) {
+            return false;
+        }
+        return !library.isInternal() || contains(builder.internalLibraries, library.getDefinedName()) || contains(builder.internalLibraries, library.getLibraryName());
+    }
+
+    private static boolean contains(String[] names, String name) {
+        if (names != null && name != null) {
+            for (String n : names) {
+                if (name.equalsIgnoreCase(n)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void sortLibraries(LibsBuilder builder, Comparator<Library> comparator, List<Library> libraries) {
+        if (comparator != null) {
+            Collections.sort(libraries, comparator);
+        } else if (builder.libraryComparator != null) {
+            Collections.sort(libraries, builder.libraryComparator);
+        }
+    }
+
+    private static void postLibraries(CancellationToken token, final Listener listener, final List<Library> libraries) {
+        post(token, new Runnable() {
+            @Override
+            public void run() {
+                listener.onLibrariesLoaded(libraries);
+            }
+        });
+    }
+
+    /**
+     * runs the runnable on the main thread, unless the load is cancelled until then
+     */
+    private static void post(final CancellationToken token, final Runnable runnable) {
+        MAIN_HANDLER.post(new Runnable() {
+            @Override
+            public void run() {
+                if (!token.isCancelled()) {
+                    runnable.run();
+                }
+            }
+        });
+    }
+
+    /**
+     * Helper to extract a boolean from a bundle or resource
+     *
+     * @param value
+     * @param resName
+     * @return
+     */
+    private static Boolean extractBooleanBundleOrResource(Context ctx, Boolean value, String resName) {
+        Boolean result = null;
+        if (value != null) {
+            result = value;
+        } else {
+            String descriptionShowVersion = Util.getStringResourceByName(ctx, resName);
+            if (!TextUtils.isEmpty(descriptionShowVersion)) {
+                try {
+                    result = Boolean.parseBoolean(descriptionShowVersion);
+                } catch (Exception ex) {
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Helper to extract a string from a bundle or resource
+     *
+     * @param value
+     * @param resName
+     * @return
+     */
+    private static String extractStringBundleOrResource(Context ctx, String value, String resName) {
+        String result = null;
+        if (value != null) {
+            result = value;
+        } else {
+            String descriptionShowVersion = Util.getStringResourceByName(ctx, resName);
+            if (!TextUtils.isEmpty(descriptionShowVersion)) {
+                result = descriptionShowVersion;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,225 @@
+package com.mikepenz.aboutlibraries;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+
+import com.mikepenz.aboutlibraries.entity.Library;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+/**
+ * A load started ahead of time by LibsBuilder.prefetch(). It keeps the stages delivered by the LibsLoader until
+ * the fragment showing the libraries attaches, which then gets them right away (and the remaining ones as soon as
+ * they are loaded).
+ * <p>
+ * The prefetches are registered by the id stored in the builder, as the fragment only gets a serialized copy of it.
+ * A prefetch which is not taken within TIMEOUT, or is pushed out by newer ones, is cancelled and removed. So is a
+ * prefetch whose builder was changed after it was started, its libraries may not match the builder anymore.
+ */
+class LibsPrefetch implements LibsLoader.Listener {
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    //the prefetches which are not taken yet, the oldest first
+    private static final LinkedHashMap<String, LibsPrefetch> PREFETCHES = new LinkedHashMap<>();
+    private static final int MAX_PREFETCHES = 3;
+    private static final long TIMEOUT = 60 * 1000;
+
+    private final Context ctx;
+    private final LibsBuilder builder;
+    //the marshalled builder of the caller at the time of the prefetch
+    private final byte[] state;
+    private final Executor executor;
+
+    private LibsLoader.CancellationToken loaderToken = null;
+    private boolean cancelled = false;
+
+    //the stages delivered so far
+    private boolean headerLoaded = false;
+    private String versionName;
+    private Integer versionCode;
+    private Drawable icon;
+    private ArrayList<Library> addedLibraries = new ArrayList<>();
+    private List<Library> libraries = null;
+
+    private LibsLoader.Listener listener = null;
+    private LibsLoader.CancellationToken listenerToken = null;
+
+    private LibsPrefetch(Context ctx, LibsBuilder builder, byte[] state, Executor executor) {
+        this.ctx = ctx.getApplicationContext();
+        this.builder = builder;
+        this.state = state;
+        this.executor = executor;
+    }
+
+    /**
+     * registers a prefetch for the builder and starts it once the main thread is idle (right away if called from another thread)
+     *
+     * @param ctx     the current context
+     * @param builder the builder to load the libraries for, its prefetchId is set
+     */
+    static void prefetch(Context ctx, LibsBuilder builder) {
+        final String prefetchId = UUID.randomUUID().toString();
+        builder.prefetchId = prefetchId;
+        //the load fills the about values of its builder, a copy keeps it off the builder of the caller
+        final LibsPrefetch prefetch = new LibsPrefetch(ctx, builder.copy(), builder.marshall(), builder.getLoaderExecutor());
+        synchronized (PREFETCHES) {
+            //make room, the oldest prefetches were most likely never used
+            Iterator<LibsPrefetch> iterator = PREFETCHES.values().iterator();
+            while (PREFETCHES.size() >= MAX_PREFETCHES && iterator.hasNext()) {
+                iterator.next().cancel();
+                iterator.remove();
+            }
+            PREFETCHES.put(prefetchId, prefetch);
+        }
+        MAIN_HANDLER.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                LibsPrefetch expired = take(prefetchId);
+                if (expired != null) {
+                    expired.cancel();
+                }
+            }
+        }, TIMEOUT);
+
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            //don't compete with the work of the current screen
+            Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+                @Override
+                public boolean queueIdle() {
+                    prefetch.start();
+                    return false;
+                }
+            });
+        } else {
+            prefetch.start();
+        }
+    }
+
+    /**
+     * removes the prefetch of the builder from the registry, each prefetch can only be taken once. Has to be called
+     * on the main thread
+     *
+     * @param builder the builder to show the libraries for
+     * @return the prefetch or null if there is none for the builder, or the builder was changed after the prefetch
+     */
+    static LibsPrefetch take(LibsBuilder builder) {
+        LibsPrefetch prefetch = take(builder.prefetchId);
+        if (prefetch != null && !Arrays.equals(prefetch.state, builder.marshall())) {
+            //the libraries were loaded for a different configuration
+            prefetch.cancel();
+            return null;
+        }
+        return prefetch;
+    }
+
+    /**
+     * @param prefetchId the id of the prefetch, see LibsBuilder.prefetchId
+     * @return the prefetch or null if there is none for the id
+     */
+    private static LibsPrefetch take(String prefetchId) {
+        if (prefetchId == null) {
+            return null;
+        }
+        synchronized (PREFETCHES) {
+            return PREFETCHES.remove(prefetchId);
+        }
+    }
+
+    private synchronized void start() {
+        if (loaderToken == null && !cancelled) {
+            loaderToken = LibsLoader.load(ctx, builder, null, executor, this);
+        }
+    }
+
+    /**
+     * cancels the load of a prefetch which is not taken and drops what was delivered so far
+     */
+    private synchronized void cancel() {
+        cancelled = true;
+        if (loaderToken != null) {
+            loaderToken.cancel();
+        }
+        icon = null;
+        addedLibraries = null;
+        libraries = null;
+    }
+
+    /**
+     * @return the builder which was prefetched, its about* values are filled by the load
+     */
+    LibsBuilder getBuilder() {
+        return builder;
+    }
+
+    /**
+     * attaches the listener, the stages loaded so far are delivered right away. Has to be called on the main thread
+     *
+     * @param listener the listener to deliver the stages to
+     * @return the token to cancel the delivery (and the load, if it is not finished yet)
+     */
+    LibsLoader.CancellationToken attach(LibsLoader.Listener listener) {
+        //the prefetch may still wait for the main thread to be idle
+        start();
+
+        this.listener = listener;
+        this.listenerToken = new LibsLoader.CancellationToken() {
+            @Override
+            public void cancel() {
+                super.cancel();
+                if (loaderToken != null) {
+                    loaderToken.cancel();
+                }
+            }
+        };
+
+        if (headerLoaded) {
+            listener.onHeaderLoaded(versionName, versionCode, icon);
+        }
+        if (libraries != null) {
+            listener.onLibrariesLoaded(libraries);
+        } else if (!addedLibraries.isEmpty()) {
+            listener.onLibrariesAdded(new ArrayList<>(addedLibraries));
+        }
+        return listenerToken;
+    }
+
+    @Override
+    public void onHeaderLoaded(String versionName, Integer versionCode, Drawable icon) {
+        this.headerLoaded = true;
+        this.versionName = versionName;
+        this.versionCode = versionCode;
+        this.icon = icon;
+        if (listener != null && !listenerToken.isCancelled()) {
+            listener.onHeaderLoaded(versionName, versionCode, icon);
+        }
+    }
+
+    @Override
+    public void onLibrariesAdded(List<Library> libraries) {
+        if (listener != null) {
+            if (!listenerToken.isCancelled()) {
+                listener.onLibrariesAdded(libraries);
+            }
+        } else if (addedLibraries != null) {
+            addedLibraries.addAll(libraries);
+        }
+    }
+
+    @Override
+    public void onLibrariesLoaded(List<Library> libraries) {
+        this.libraries = libraries;
+        this.addedLibraries = null;
+        if (listener != null && !listenerToken.isCancelled()) {
+            listener.onLibrariesLoaded(libraries);
+        }
+    }
+}
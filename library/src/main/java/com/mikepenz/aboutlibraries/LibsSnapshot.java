@@ -0,0 +1,333 @@
+package com.mikepenz.aboutlibraries;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.util.Log;
+
+import com.mikepenz.aboutlibraries.catalog.LicenseTexts;
+import com.mikepenz.aboutlibraries.entity.Library;
+import com.mikepenz.aboutlibraries.entity.License;
+import com.mikepenz.aboutlibraries.entity.LicenseDefinition;
+import com.mikepenz.aboutlibraries.util.DataStreams;
+import com.mikepenz.aboutlibraries.util.Util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Persists the final list of libraries prepared by the LibsLoader, so the next cold start reads it with a single
+ * read instead of loading the definitions, applying the modifications, detecting and sorting the libraries again.
+ * <p>
+ * The snapshot is only used for the same app installation (versionCode and lastUpdateTime) and the same key, a hash
+ * over the locale and everything of the builder which changes the prepared list. The license definitions are
+ * written once and shared by the libraries again when read, bundled license texts are still read lazily.
+ * <p>
+ * Layout (big endian, strings are written with DataStreams):
+ * <pre>
+ * int    magic ("ABLS")
+ * int    format version
+ * int    versionCode of the app
+ * long   lastUpdateTime of the app
+ * long   key
+ * int    number of license definitions, followed by the definitions
+ * int    number of libraries, followed by the libraries and their licenses
+ * </pre>
+ */
+public class LibsSnapshot {
+    private static final String FILE_NAME = "aboutlibraries_snapshot.bin";
+
+    private static final int MAGIC = 0x41424C53;
+    private static final int FORMAT_VERSION = 1;
+    //a snapshot is a few hundred KB at most, anything larger is not ours
+    private static final long MAX_SIZE = 8 * 1024 * 1024;
+
+    private LibsSnapshot() {
+    }
+
+    /**
+     * @param ctx     the current context
+     * @param builder the builder the libraries are loaded for
+     * @param sort    true if the libraries are sorted by name when they are prepared
+     * @return the key identifying the prepared libraries of this builder in the current locale
+     */
+    static long key(Context ctx, LibsBuilder builder, boolean sort) {
+        long hash = 0xcbf29ce484222325L;
+        hash = hash(hash, String.valueOf(ctx.getResources().getConfiguration().locale));
+        hash = hash(hash, builder.fields);
+        hash = hash(hash, builder.internalLibraries);
+        hash = hash(hash, builder.excludeLibraries);
+        hash = hash(hash, String.valueOf(builder.autoDetect));
+        hash = hash(hash, String.valueOf(builder.dexDetection));
+        hash = hash(hash, String.valueOf(builder.useCatalog));
+        hash = hash(hash, String.valueOf(sort));
+        if (builder.libraryModification != null) {
+            //sorted, so the key does not depend on the order of the HashMaps
+            for (Map.Entry<String, HashMap<String, String>> entry : new TreeMap<>(builder.libraryModification).entrySet()) {
+                hash = hash(hash, entry.getKey());
+                if (entry.getValue() != null) {
+                    for (Map.Entry<String, String> modification : new TreeMap<>(entry.getValue()).entrySet()) {
+                        hash = hash(hash, modification.getKey());
+                        hash = hash(hash, modification.getValue());
+                    }
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * @param ctx the current context
+     * @param key the key of the libraries, see key()
+     * @return the libraries of the snapshot or null if there is no valid snapshot for this app installation and key
+     */
+    static ArrayList<Library> read(Context ctx, long key) {
+        PackageInfo pi = Util.getPackageInfo(ctx);
+        File file = getFile(ctx);
+        if (pi == null || !file.exists()) {
+            return null;
+        }
+
+        try {
+            FileInputStream in = new FileInputStream(file);
+            ByteBuffer buffer;
+            try {
+                FileChannel channel = in.getChannel();
+                long size = channel.size();
+                if (size > MAX_SIZE) {
+                    return null;
+                }
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                }
+            } finally {
+                in.close();
+            }
+
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(buffer.array(), 0, buffer.position()));
+            if (data.readInt() != MAGIC
+                    || data.readInt() != FORMAT_VERSION
+                    || data.readInt() != pi.versionCode
+                    || data.readLong() != pi.lastUpdateTime
+                    || data.readLong() != key) {
+                return null;
+            }
+
+            LicenseTexts licenseTexts = null;
+            //a definition has at least 4 string lengths and the bundled flag
+            LicenseDefinition[] definitions = new LicenseDefinition[DataStreams.readCount(data, 17)];
+            for (int i = 0; i < definitions.length; i++) {
+                String definedName = DataStreams.readString(data);
+                String licenseName = DataStreams.readString(data);
+                String licenseWebsite = DataStreams.readString(data);
+                String licenseShortDescription = DataStreams.readString(data);
+                if (data.readBoolean()) {
+                    if (licenseTexts == null) {
+                        licenseTexts = LicenseTexts.getInstance(ctx);
+                        if (licenseTexts == null) {
+                            return null;
+                        }
+                    }
+                    definitions[i] = new LicenseDefinition(definedName, licenseName, licenseWebsite, licenseShortDescription, licenseTexts);
+                } else {
+                    definitions[i] = new LicenseDefinition(definedName, licenseName, licenseWebsite, licenseShortDescription, DataStreams.readString(data));
+                }
+            }
+
+            //a library has at least 9 string lengths and 3 flags
+            int count = DataStreams.readCount(data, 39);
+            ArrayList<Library> libraries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Library library = new Library();
+                library.setDefinedName(DataStreams.readString(data));
+                library.setInternal(data.readBoolean());
+                library.setAuthor(DataStreams.readString(data));
+                library.setAuthorWebsite(DataStreams.readString(data));
+                library.setLibraryName(DataStreams.readString(data));
+                library.setLibraryDescription(DataStreams.readString(data));
+                library.setLibraryVersion(DataStreams.readString(data));
+                library.setLibraryWebsite(DataStreams.readString(data));
+                library.setOpenSource(data.readBoolean());
+                library.setRepositoryLink(DataStreams.readString(data));
+                library.setClassPath(DataStreams.readString(data));
+                if (data.readBoolean()) {
+                    library.setLicense(readLicense(data, definitions));
+                }
+                libraries.add(library);
+            }
+            return libraries;
+        } catch (IOException | RuntimeException ex) {
+            Log.w("aboutlibraries", "Failed to read the libraries snapshot: " + ex.toString());
+            return null;
+        }
+    }
+
+    /**
+     * stores the prepared libraries for the current app installation
+     *
+     * @param ctx       the current context
+     * @param key       the key of the libraries, see key()
+     * @param libraries the prepared libraries
+     */
+    static void write(Context ctx, long key, List<Library> libraries) {
+        PackageInfo pi = Util.getPackageInfo(ctx);
+        if (pi == null) {
+            return;
+        }
+
+        //the definitions shared by the licenses, in the order they are written
+        IdentityHashMap<LicenseDefinition, Integer> definitionIndex = new IdentityHashMap<>();
+        ArrayList<LicenseDefinition> definitions = new ArrayList<>();
+        for (Library library : libraries) {
+            LicenseDefinition definition = library.getLicense() != null ? library.getLicense().getDefinition() : null;
+            if (definition != null && !definitionIndex.containsKey(definition)) {
+                definitionIndex.put(definition, definitions.size());
+                definitions.add(definition);
+            }
+        }
+
+        File file = getFile(ctx);
+        try {
+            //write to a temporary file first, so a concurrent read never sees a partial file
+            File tmp = File.createTempFile("aboutlibraries", ".tmp", file.getParentFile());
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 8192));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(pi.versionCode);
+                out.writeLong(pi.lastUpdateTime);
+                out.writeLong(key);
+
+                out.writeInt(definitions.size());
+                for (LicenseDefinition definition : definitions) {
+                    DataStreams.writeString(out, definition.getDefinedName());
+                    DataStreams.writeString(out, definition.getLicenseName());
+                    DataStreams.writeString(out, definition.getLicenseWebsite());
+                    DataStreams.writeString(out, definition.getLicenseShortDescription());
+                    out.writeBoolean(definition.isLicenseDescriptionBundled());
+                    if (!definition.isLicenseDescriptionBundled()) {
+                        DataStreams.writeString(out, definition.getLicenseDescription());
+                    }
+                }
+
+                out.writeInt(libraries.size());
+                for (Library library : libraries) {
+                    DataStreams.writeString(out, library.getDefinedName());
+                    out.writeBoolean(library.isInternal());
+                    DataStreams.writeString(out, library.getAuthor());
+                    DataStreams.writeString(out, library.getAuthorWebsite());
+                    DataStreams.writeString(out, library.getLibraryName());
+                    DataStreams.writeString(out, library.getLibraryDescription());
+                    DataStreams.writeString(out, library.getLibraryVersion());
+                    DataStreams.writeString(out, library.getLibraryWebsite());
+                    out.writeBoolean(library.isOpenSource());
+                    DataStreams.writeString(out, library.getRepositoryLink());
+                    DataStreams.writeString(out, library.getClassPath());
+                    License license = library.getLicense();
+                    out.writeBoolean(license != null);
+                    if (license != null) {
+                        Integer index = license.getDefinition() != null ? definitionIndex.get(license.getDefinition()) : null;
+                        writeLicense(out, license, index != null ? index : -1);
+                    }
+                }
+            } finally {
+                out.close();
+            }
+            if (!tmp.renameTo(file)) {
+                //noinspection ResultOfMethodCallIgnored
+                tmp.delete();
+            }
+        } catch (IOException ex) {
+            Log.w("aboutlibraries", "Failed to write the libraries snapshot: " + ex.toString());
+        }
+    }
+
+    /**
+     * writes the index of the definition of the license, its variables and the values it changed. Values which are
+     * taken from the definition are written as null, so the full text of a license is only written if it has its own
+     */
+    private static void writeLicense(DataOutputStream out, License license, int definitionIndex) throws IOException {
+        //the license as its definition and variables define it, to find the values the license changed
+        License shared = license.getDefinition() != null ? new License(license.getDefinition(), license.getVariables()) : null;
+
+        out.writeInt(definitionIndex);
+        DataStreams.writeMap(out, license.getVariables());
+        DataStreams.writeString(out, changedValue(license.getDefinedName(), shared != null ? shared.getDefinedName() : null));
+        DataStreams.writeString(out, changedValue(license.getLicenseName(), shared != null ? shared.getLicenseName() : null));
+        DataStreams.writeString(out, changedValue(license.getLicenseWebsite(), shared != null ? shared.getLicenseWebsite() : null));
+        DataStreams.writeString(out, changedValue(license.getLicenseShortDescription(), shared != null ? shared.getLicenseShortDescription() : null));
+        DataStreams.writeString(out, license.hasSameLicenseDescription(shared) ? null : license.getLicenseDescription());
+    }
+
+    private static License readLicense(DataInputStream in, LicenseDefinition[] definitions) throws IOException {
+        int definitionIndex = in.readInt();
+        if (definitionIndex >= definitions.length) {
+            throw new IOException("Invalid license definition " + definitionIndex);
+        }
+        License license = new License(definitionIndex >= 0 ? definitions[definitionIndex] : null, DataStreams.readMap(in));
+        license.setDefinedName(DataStreams.readString(in));
+        license.setLicenseName(DataStreams.readString(in));
+        license.setLicenseWebsite(DataStreams.readString(in));
+        license.setLicenseShortDescription(DataStreams.readString(in));
+        license.setLicenseDescription(DataStreams.readString(in));
+        return license;
+    }
+
+    /**
+     * @return the value or null if it is the same as the value of the definition
+     */
+    private static String changedValue(String value, String sharedValue) {
+        return value == null || value.equals(sharedValue) ? null : value;
+    }
+
+    /**
+     * removes the snapshot, the libraries are prepared again with the next load
+     *
+     * @param ctx the current context
+     */
+    public static void clear(Context ctx) {
+        //noinspection ResultOfMethodCallIgnored
+        getFile(ctx).delete();
+    }
+
+    static File getFile(Context ctx) {
+        return new File(ctx.getCacheDir(), FILE_NAME);
+    }
+
+    /**
+     * 64 bit FNV-1a hash, the same as the DetectionCache uses
+     */
+    private static long hash(long hash, String[] values) {
+        if (values == null) {
+            return hash(hash, (String) null);
+        }
+        hash = hash(hash, String.valueOf(values.length));
+        for (String value : values) {
+            hash = hash(hash, value);
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+            }
+        }
+        //separator, so ("ab", "c") and ("a", "bc") differ
+        return (hash ^ 0xFFFF) * 0x100000001b3L;
+    }
+}
@@ -0,0 +1,192 @@
+package com.mikepenz.aboutlibraries.catalog;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * A read-only view on the catalog asset which is generated into the app at build time by
+ * gradle-aboutlibraries.gradle (ext.aboutLibrariesCatalog = true). It contains the define_*, library_*
+ * and license_* strings of the app and its dependencies, already processed like aapt processes string
+ * resources.
+ * <p>
+ * Layout (big endian):
+ * <pre>
+ * int    magic ("ABLC")
+ * int    version
+ * int    count
+ * int[]  index, the absolute offset of each entry, sorted by key
+ * entry  short keyLength, byte[] key (UTF-8), int valueLength, byte[] value (UTF-8)
+ * </pre>
+ */
+public class LibraryCatalog {
+    public static final String ASSET_PATH = "aboutlibraries/catalog.bin";
+
+    private static final int MAGIC = 0x41424C43;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static volatile LibraryCatalog sInstance;
+
+    private final byte[] data;
+    private final int count;
+    private final String[] values;
+
+    private LibraryCatalog(byte[] data) {
+        this.data = data;
+        this.count = readInt(8);
+        this.values = new String[count];
+    }
+
+    /**
+     * loads the catalog from the assets. the catalog is immutable so it is only read once per process
+     *
+     * @param ctx the current context
+     * @return the catalog or null if the asset is missing or can't be read
+     */
+    public static LibraryCatalog getInstance(Context ctx) {
+        LibraryCatalog catalog = sInstance;
+        if (catalog == null) {
+            synchronized (LibraryCatalog.class) {
+                catalog = sInstance;
+                if (catalog == null) {
+                    catalog = load(ctx);
+                    sInstance = catalog;
+                }
+            }
+        }
+        return catalog;
+    }
+
+    private static LibraryCatalog load(Context ctx) {
+        InputStream in = null;
+        try {
+            in = ctx.getAssets().open(ASSET_PATH);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(256 * 1024);
+            byte[] buffer = new byte[16 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            byte[] data = out.toByteArray();
+
+            if (data.length < HEADER_SIZE || readInt(data, 0) != MAGIC || readInt(data, 4) != VERSION) {
+                Log.e("aboutlibraries", "Unsupported library catalog in " + ASSET_PATH);
+                return null;
+            }
+            return new LibraryCatalog(data);
+        } catch (IOException ex) {
+            Log.e("aboutlibraries", "Failed to read the library catalog: " + ex.toString());
+            return null;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of strings within this catalog
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @param key the name of the string resource
+     * @return true if the catalog contains the string
+     */
+    public boolean contains(String key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @param definedName the defined name of a library (e.g. "fastadapter")
+     * @return true if this catalog contains the definition of the library
+     */
+    public boolean definesLibrary(String definedName) {
+        return contains("define_" + definedName) || contains("define_int_" + definedName);
+    }
+
+    /**
+     * @param definedName the defined name of a license (e.g. "apache_2_0")
+     * @return true if this catalog contains the definition of the license
+     */
+    public boolean definesLicense(String definedName) {
+        return contains("define_license_" + definedName);
+    }
+
+    /**
+     * @param key the name of the string resource
+     * @return the value of the string or null if the catalog does not contain it
+     */
+    public String getString(String key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        String value = values[index];
+        if (value == null) {
+            int offset = readInt(HEADER_SIZE + 4 * index);
+            offset += 2 + readShort(offset);
+            value = new String(data, offset + 4, readInt(offset), UTF_8);
+            values[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * binary search over the sorted index. keys are resource names, so they are plain ascii and can
+     * be compared to the encoded key byte by byte
+     */
+    private int indexOf(String key) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compareKey(readInt(HEADER_SIZE + 4 * mid), key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int compareKey(int offset, String key) {
+        int length = readShort(offset);
+        int start = offset + 2;
+        int n = Math.min(length, key.length());
+        for (int i = 0; i < n; i++) {
+            int cmp = (data[start + i] & 0xFF) - key.charAt(i);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - key.length();
+    }
+
+    private int readShort(int offset) {
+        return ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+    }
+
+    private int readInt(int offset) {
+        return readInt(data, offset);
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16) | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,182 @@
+package com.mikepenz.aboutlibraries.catalog;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The full texts of the bundled licenses, compressed into an asset at build time by the
+ * generateAboutLibrariesLicenseTexts task (gradle-catalog.gradle). Only the index is kept in memory, a text is
+ * decompressed from the asset each time it is read.
+ * <p>
+ * Layout (big endian):
+ * <pre>
+ * int    magic ("ABLT")
+ * int    version
+ * int    count
+ * entry  short nameLength, byte[] name (UTF-8), int offset, int compressedLength, int length, sorted by name
+ * byte[] the zlib compressed texts (UTF-8), at the offsets of the index
+ * </pre>
+ */
+public class LicenseTexts {
+    public static final String ASSET_PATH = "aboutlibraries/licenses.bin";
+
+    private static final int MAGIC = 0x41424C54;
+    private static final int VERSION = 1;
+    //there are a few dozen licenses of a few KB each, anything way larger is corrupt
+    private static final int MAX_COUNT = 4096;
+    private static final int MAX_LENGTH = 1024 * 1024;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static volatile LicenseTexts sInstance;
+    //marks that the asset is missing or can't be read
+    private static final LicenseTexts NO_TEXTS = new LicenseTexts(null, new HashMap<String, int[]>());
+
+    private final AssetManager assets;
+    //the offset, compressed length and length of each text by the definedName of its license
+    private final HashMap<String, int[]> index;
+
+    private LicenseTexts(AssetManager assets, HashMap<String, int[]> index) {
+        this.assets = assets;
+        this.index = index;
+    }
+
+    /**
+     * loads the index of the license texts from the assets, it is only read once per process
+     *
+     * @param ctx the current context
+     * @return the license texts or null if the asset is missing or can't be read
+     */
+    public static LicenseTexts getInstance(Context ctx) {
+        LicenseTexts texts = sInstance;
+        if (texts == null) {
+            synchronized (LicenseTexts.class) {
+                texts = sInstance;
+                if (texts == null) {
+                    texts = load(ctx.getApplicationContext().getAssets());
+                    sInstance = texts;
+                }
+            }
+        }
+        return texts == NO_TEXTS ? null : texts;
+    }
+
+    private static LicenseTexts load(AssetManager assets) {
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(assets.open(ASSET_PATH), 1024));
+            return new LicenseTexts(assets, readIndex(in));
+        } catch (IOException ex) {
+            Log.e("aboutlibraries", "Failed to read the license texts: " + ex.toString());
+            return NO_TEXTS;
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * @param in the license texts, positioned at their start
+     * @return the offset, compressed length and length of each text by the definedName of its license
+     * @throws IOException if the license texts are not supported or corrupt
+     */
+    static HashMap<String, int[]> readIndex(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Unsupported license texts in " + ASSET_PATH);
+        }
+
+        int count = in.readInt();
+        if (count < 0 || count > MAX_COUNT) {
+            throw new IOException("Invalid count " + count);
+        }
+        HashMap<String, int[]> index = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[in.readUnsignedShort()];
+            in.readFully(name);
+            int[] entry = new int[]{in.readInt(), in.readInt(), in.readInt()};
+            if (entry[0] < 0 || entry[1] < 0 || entry[2] < 0 || entry[2] > MAX_LENGTH) {
+                throw new IOException("Invalid entry of the license text " + new String(name, UTF_8));
+            }
+            index.put(new String(name, UTF_8), entry);
+        }
+        return index;
+    }
+
+    /**
+     * @param definedName the defined name of a license (e.g. "apache_2_0")
+     * @return true if the text of the license is bundled
+     */
+    public boolean contains(String definedName) {
+        return index.containsKey(definedName);
+    }
+
+    /**
+     * decompresses the text of the license out of the asset. Don't call this on the main thread
+     *
+     * @param definedName the defined name of a license (e.g. "apache_2_0")
+     * @return the text or null if it is not bundled or can't be read
+     */
+    public String read(String definedName) {
+        int[] entry = index.get(definedName);
+        if (entry == null) {
+            return null;
+        }
+
+        try {
+            return readText(assets.open(ASSET_PATH), entry);
+        } catch (IOException ex) {
+            Log.e("aboutlibraries", "Failed to read the license text " + definedName + ": " + ex.toString());
+            return null;
+        }
+    }
+
+    /**
+     * @param in    the license texts, positioned at their start. It is closed afterwards
+     * @param entry the entry of the text in the index, see readIndex()
+     * @return the decompressed text
+     * @throws IOException if the text can't be read
+     */
+    static String readText(InputStream in, int[] entry) throws IOException {
+        try {
+            long skip = entry[0];
+            while (skip > 0) {
+                long skipped = in.skip(skip);
+                if (skipped <= 0) {
+                    throw new IOException("Unexpected end of " + ASSET_PATH);
+                }
+                skip = skip - skipped;
+            }
+
+            //the inflater reads the compressed text as a stream, only the text itself is allocated. closing it closes the asset too
+            in = new InflaterInputStream(in);
+            byte[] text = new byte[entry[2]];
+            int offset = 0;
+            while (offset < text.length) {
+                int read = in.read(text, offset, text.length - offset);
+                if (read < 0) {
+                    throw new IOException("Unexpected end of the license text");
+                }
+                offset = offset + read;
+            }
+            return new String(text, UTF_8);
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
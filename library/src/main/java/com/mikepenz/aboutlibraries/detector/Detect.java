@@ -5,9 +5,11 @@ import android.content.pm.PackageManager;
 import android.text.TextUtils;
 
 import com.mikepenz.aboutlibraries.entity.Library;
+import com.mikepenz.aboutlibraries.util.ParallelUtil;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Created by mikepenz on 08.09.14.
@@ -16,24 +18,44 @@ import java.util.List;
  */
 public class Detect {
     public static List<Library> detect(Context mCtx, List<Library> libraries) {
+        return detect(mCtx, libraries, null);
+    }
+
+    /**
+     * detects the libraries which are included in the app by their classPath
+     *
+     * @param mCtx      the current context
+     * @param libraries the libraries to check
+     * @param executor  an executor to probe the libraries in parallel, or null to probe them on the calling thread
+     * @return the found libraries in the order of the passed list
+     */
+    public static List<Library> detect(Context mCtx, List<Library> libraries, Executor executor) {
         ArrayList<Library> foundLibraries = new ArrayList<>();
+
+        //resolve the class loader of our package only once, creating the package context is expensive
+        final ClassLoader classLoader;
+        try {
+            Context ctx = mCtx.createPackageContext(mCtx.getPackageName(),
+                    Context.CONTEXT_INCLUDE_CODE | Context.CONTEXT_IGNORE_SECURITY);
+            classLoader = ctx.getClassLoader();
+        } catch (PackageManager.NameNotFoundException e) {
+            return foundLibraries;
+        }
+
         // Loop through known libraries
-        for (Library library : libraries) {
-            if (!TextUtils.isEmpty(library.getClassPath())) {
-                try {
-                    Context ctx = mCtx.createPackageContext(mCtx.getPackageName(),
-                            Context.CONTEXT_INCLUDE_CODE | Context.CONTEXT_IGNORE_SECURITY);
-                    Class<?> clazz = Class.forName(library.getClassPath(), false, ctx.getClassLoader());
-
-                    // Detected a library!!!
-                    if (clazz != null) {
-                        foundLibraries.add(library);
-                    }
-                } catch (ClassNotFoundException e) {
-                    //e.printStackTrace();
-                } catch (PackageManager.NameNotFoundException e) {
-                    //e.printStackTrace();
-                }
+        final Library[] candidates = libraries.toArray(new Library[libraries.size()]);
+        final boolean[] found = new boolean[candidates.length];
+        ParallelUtil.forEach(executor, candidates.length, new ParallelUtil.IndexedTask() {
+            @Override
+            public void run(int index) {
+                found[index] = isAvailable(classLoader, candidates[index].getClassPath());
+            }
+        });
+
+        for (int i = 0; i < candidates.length; i++) {
+            // Detected a library!!!
+            if (found[i]) {
+                foundLibraries.add(candidates[i]);
             }
         }
         // Only return AppSource if app has a library
@@ -41,4 +63,18 @@ public class Detect {
 
         return foundLibraries;
     }
+
+    private static boolean isAvailable(ClassLoader classLoader, String classPath) {
+        if (TextUtils.isEmpty(classPath)) {
+            return false;
+        }
+        try {
+            return Class.forName(classPath, false, classLoader) != null;
+        } catch (ClassNotFoundException e) {
+            //e.printStackTrace();
+        } catch (LinkageError e) {
+            //the class exists but can't be linked, don't let this break the probing on a worker thread
+        }
+        return false;
+    }
 }
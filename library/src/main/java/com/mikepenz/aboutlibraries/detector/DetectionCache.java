@@ -0,0 +1,222 @@
+package com.mikepenz.aboutlibraries.detector;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageInfo;
+import android.os.Build;
+import android.util.Log;
+
+import com.mikepenz.aboutlibraries.entity.Library;
+import com.mikepenz.aboutlibraries.util.Util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Caches the autodetected libraries in a small binary file, so the detection only runs once per app version.
+ * <p>
+ * The detected libraries are stored as a bitset over their position in the list of all libraries. The list
+ * is identified by a hash over the definedName and classPath of every library, so the cache is only used
+ * for the same definitions in the same order.
+ * <p>
+ * Layout (big endian):
+ * <pre>
+ * int    magic ("ABLD")
+ * int    format version
+ * int    versionCode of the app
+ * long   hash of the libraries
+ * int    number of libraries
+ * byte[] bitset, bit (i % 8) of byte (i / 8) is set if library i was detected
+ * </pre>
+ */
+public class DetectionCache {
+    private static final String FILE_NAME = "aboutlibraries_detected.bin";
+    //the SharedPreferences the detected libraries were stored in before
+    private static final String LEGACY_PREFERENCES = "aboutLibraries";
+
+    private static final int MAGIC = 0x41424C44;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+
+    private DetectionCache() {
+    }
+
+    /**
+     * @param ctx       the current context
+     * @param libraries all libraries, in the same order as passed to write()
+     * @return the cached detected libraries or null if there is no valid cache for this app version and libraries
+     */
+    public static List<Library> read(Context ctx, List<Library> libraries) {
+        int versionCode = getVersionCode(ctx);
+        File file = getFile(ctx);
+        if (versionCode == -1 || !file.exists()) {
+            return null;
+        }
+
+        try {
+            FileInputStream in = new FileInputStream(file);
+            ByteBuffer buffer;
+            try {
+                FileChannel channel = in.getChannel();
+                long size = channel.size();
+                if (size < HEADER_SIZE || size > HEADER_SIZE + libraries.size() / 8 + 1) {
+                    return null;
+                }
+                buffer = ByteBuffer.allocate((int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                }
+            } finally {
+                in.close();
+            }
+            buffer.flip();
+
+            if (buffer.remaining() < HEADER_SIZE
+                    || buffer.getInt() != MAGIC
+                    || buffer.getInt() != FORMAT_VERSION
+                    || buffer.getInt() != versionCode
+                    || buffer.getLong() != hash(libraries)
+                    || buffer.getInt() != libraries.size()
+                    || buffer.remaining() != bitsetSize(libraries.size())) {
+                return null;
+            }
+
+            ArrayList<Library> detected = new ArrayList<>();
+            for (int i = 0; i < libraries.size(); i++) {
+                if ((buffer.get(HEADER_SIZE + i / 8) & (1 << (i % 8))) != 0) {
+                    detected.add(libraries.get(i));
+                }
+            }
+            return detected;
+        } catch (IOException ex) {
+            Log.w("aboutlibraries", "Failed to read the autodetect cache: " + ex.toString());
+            return null;
+        }
+    }
+
+    /**
+     * stores the detected libraries for the current app version
+     *
+     * @param ctx       the current context
+     * @param libraries all libraries
+     * @param detected  the detected libraries, which have to be part of libraries
+     */
+    public static void write(Context ctx, List<Library> libraries, List<Library> detected) {
+        int versionCode = getVersionCode(ctx);
+        if (versionCode == -1) {
+            return;
+        }
+
+        IdentityHashMap<Library, Boolean> detectedLibraries = new IdentityHashMap<>();
+        for (Library library : detected) {
+            detectedLibraries.put(library, Boolean.TRUE);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + bitsetSize(libraries.size()));
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(versionCode);
+        buffer.putLong(hash(libraries));
+        buffer.putInt(libraries.size());
+        for (int i = 0; i < libraries.size(); i++) {
+            if (detectedLibraries.containsKey(libraries.get(i))) {
+                int index = HEADER_SIZE + i / 8;
+                buffer.put(index, (byte) (buffer.get(index) | (1 << (i % 8))));
+            }
+        }
+        buffer.position(0);
+
+        File file = getFile(ctx);
+        if (!file.exists()) {
+            //the first write, the previous cache is not needed anymore
+            clearLegacyPreferences(ctx);
+        }
+        try {
+            //write to a temporary file first, so a concurrent read never sees a partial file
+            File tmp = File.createTempFile("aboutlibraries", ".tmp", file.getParentFile());
+            FileOutputStream out = new FileOutputStream(tmp);
+            try {
+                FileChannel channel = out.getChannel();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } finally {
+                out.close();
+            }
+            if (!tmp.renameTo(file)) {
+                //noinspection ResultOfMethodCallIgnored
+                tmp.delete();
+            }
+        } catch (IOException ex) {
+            Log.w("aboutlibraries", "Failed to write the autodetect cache: " + ex.toString());
+        }
+    }
+
+    /**
+     * removes the cached detection
+     *
+     * @param ctx the current context
+     */
+    public static void clear(Context ctx) {
+        //noinspection ResultOfMethodCallIgnored
+        getFile(ctx).delete();
+    }
+
+    private static void clearLegacyPreferences(Context ctx) {
+        ApplicationInfo applicationInfo = ctx.getApplicationInfo();
+        if (applicationInfo == null || applicationInfo.dataDir == null) {
+            return;
+        }
+        //check the file first, clearing preferences which don't exist would write an empty file
+        File preferences = new File(applicationInfo.dataDir, "shared_prefs/" + LEGACY_PREFERENCES + ".xml");
+        if (preferences.exists()) {
+            //deleting the file below N would leave the loaded preferences of the process behind, they are cleared instead
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+                ctx.deleteSharedPreferences(LEGACY_PREFERENCES);
+            } else {
+                ctx.getSharedPreferences(LEGACY_PREFERENCES, Context.MODE_PRIVATE).edit().clear().commit();
+            }
+        }
+    }
+
+    static File getFile(Context ctx) {
+        return new File(ctx.getCacheDir(), FILE_NAME);
+    }
+
+    private static int bitsetSize(int count) {
+        return (count + 7) / 8;
+    }
+
+    private static int getVersionCode(Context ctx) {
+        PackageInfo pi = Util.getPackageInfo(ctx);
+        return pi != null ? pi.versionCode : -1;
+    }
+
+    /**
+     * 64 bit FNV-1a hash over the definedName and classPath of all libraries
+     */
+    private static long hash(List<Library> libraries) {
+        long hash = 0xcbf29ce484222325L;
+        for (Library library : libraries) {
+            hash = hash(hash, library.getDefinedName());
+            hash = hash(hash, library.getClassPath());
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+            }
+        }
+        //separator, so ("ab", "c") and ("a", "bc") differ
+        return (hash ^ 0xFFFF) * 0x100000001b3L;
+    }
+}
@@ -0,0 +1,441 @@
+package com.mikepenz.aboutlibraries.detector;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.mikepenz.aboutlibraries.entity.Library;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Detects libraries by scanning the class definitions of the dex files within the APK, instead of trying
+ * to load the classPath of every library. No class is loaded or initialized and every dex file is read only once.
+ * <p>
+ * The classPaths of the libraries are hashed up front, the scan then only hashes the descriptor bytes of each
+ * defined class and compares the bytes of the rare hash hits. Stored dex files are memory mapped, compressed
+ * ones are scanned while they are inflated, nothing is written to disk.
+ */
+public class DexDetect {
+    private static final int ZIP_EOCD_SIGNATURE = 0x06054b50;
+    private static final int ZIP_CENTRAL_DIRECTORY_SIGNATURE = 0x02014b50;
+    private static final int ZIP_LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int ZIP_STORED = 0;
+    private static final int ZIP_DEFLATED = 8;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * @param ctx       the current context
+     * @param libraries the libraries to check
+     * @return the found libraries in the order of the passed list, or null if the APK could not be scanned
+     */
+    public static List<Library> detect(Context ctx, List<Library> libraries) {
+        ApplicationInfo applicationInfo = ctx.getApplicationInfo();
+        if (applicationInfo == null || applicationInfo.sourceDir == null) {
+            return null;
+        }
+
+        Library[] candidates = libraries.toArray(new Library[libraries.size()]);
+        Descriptors descriptors = new Descriptors(candidates);
+        boolean[] found = new boolean[candidates.length];
+
+        try {
+            scanApk(new File(applicationInfo.sourceDir), descriptors, found);
+            if (applicationInfo.splitSourceDirs != null) {
+                for (String splitSourceDir : applicationInfo.splitSourceDirs) {
+                    scanApk(new File(splitSourceDir), descriptors, found);
+                }
+            }
+        } catch (Exception ex) {
+            Log.w("aboutlibraries", "Failed to scan the dex files for autoDetect: " + ex.toString());
+            return null;
+        }
+
+        ArrayList<Library> foundLibraries = new ArrayList<>();
+        for (int i = 0; i < candidates.length; i++) {
+            if (found[i]) {
+                foundLibraries.add(candidates[i]);
+            }
+        }
+        return foundLibraries;
+    }
+
+    /**
+     * scans all classes*.dex entries of the APK. Stored entries are mapped directly out of the APK,
+     * compressed ones are scanned as a stream while they are inflated
+     */
+    private static void scanApk(File apk, Descriptors descriptors, boolean[] found) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(apk, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            ByteBuffer centralDirectory = readCentralDirectory(channel);
+
+            while (centralDirectory.remaining() >= 46 && centralDirectory.getInt(centralDirectory.position()) == ZIP_CENTRAL_DIRECTORY_SIGNATURE) {
+                int entry = centralDirectory.position();
+                int method = centralDirectory.getShort(entry + 10) & 0xFFFF;
+                long compressedSize = centralDirectory.getInt(entry + 20) & 0xFFFFFFFFL;
+                long size = centralDirectory.getInt(entry + 24) & 0xFFFFFFFFL;
+                int nameLength = centralDirectory.getShort(entry + 28) & 0xFFFF;
+                int extraLength = centralDirectory.getShort(entry + 30) & 0xFFFF;
+                int commentLength = centralDirectory.getShort(entry + 32) & 0xFFFF;
+                long localHeaderOffset = centralDirectory.getInt(entry + 42) & 0xFFFFFFFFL;
+
+                byte[] name = new byte[nameLength];
+                centralDirectory.position(entry + 46);
+                centralDirectory.get(name);
+                centralDirectory.position(entry + 46 + nameLength + extraLength + commentLength);
+
+                if (isDexEntry(name)) {
+                    long dataOffset = getDataOffset(channel, localHeaderOffset);
+                    if (method == ZIP_STORED) {
+                        scanDex(channel.map(FileChannel.MapMode.READ_ONLY, dataOffset, size), descriptors, found);
+                    } else if (method == ZIP_DEFLATED) {
+                        scanDeflatedDex(channel, dataOffset, compressedSize, descriptors, found);
+                    } else {
+                        throw new IOException("Unsupported compression method " + method);
+                    }
+                }
+            }
+        } finally {
+            file.close();
+        }
+    }
+
+    private static ByteBuffer readCentralDirectory(FileChannel channel) throws IOException {
+        //the end of central directory record is within the last 64kb (max comment length) + 22 bytes
+        long fileSize = channel.size();
+        int tailSize = (int) Math.min(fileSize, 0xFFFF + 22);
+        ByteBuffer tail = readFully(channel, fileSize - tailSize, tailSize);
+
+        for (int i = tailSize - 22; i >= 0; i--) {
+            if (tail.getInt(i) == ZIP_EOCD_SIGNATURE) {
+                long size = tail.getInt(i + 12) & 0xFFFFFFFFL;
+                long offset = tail.getInt(i + 16) & 0xFFFFFFFFL;
+                if (offset == 0xFFFFFFFFL || offset + size > fileSize) {
+                    throw new IOException("Unsupported zip64 APK");
+                }
+                return readFully(channel, offset, (int) size);
+            }
+        }
+        throw new IOException("No end of central directory found");
+    }
+
+    private static long getDataOffset(FileChannel channel, long localHeaderOffset) throws IOException {
+        ByteBuffer header = readFully(channel, localHeaderOffset, 30);
+        if (header.getInt(0) != ZIP_LOCAL_HEADER_SIGNATURE) {
+            throw new IOException("Invalid local file header");
+        }
+        return localHeaderOffset + 30 + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * @return true for classes.dex, classes2.dex, ...
+     */
+    private static boolean isDexEntry(byte[] name) {
+        String entryName = new String(name, UTF_8);
+        if (!entryName.startsWith("classes") || !entryName.endsWith(".dex")) {
+            return false;
+        }
+        for (int i = 7; i < entryName.length() - 4; i++) {
+            if (!Character.isDigit(entryName.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void scanDeflatedDex(FileChannel channel, long dataOffset, long compressedSize, Descriptors descriptors, boolean[] found) throws IOException {
+        //the stream is not closed, it would close the channel of the APK
+        Inflater inflater = new Inflater(true);
+        try {
+            channel.position(dataOffset);
+            InputStream in = new InflaterInputStream(new BoundedInputStream(Channels.newInputStream(channel), compressedSize), inflater, 64 * 1024);
+            scanDex(new DexStream(new BufferedInputStream(in, 64 * 1024)), descriptors, found);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * scans a dex file which can only be read forward. The ids come before the string data in every dex file, so
+     * the offsets of the class descriptors are collected first and the descriptors are read while the stream passes them
+     */
+    private static void scanDex(DexStream dex, Descriptors descriptors, boolean[] found) throws IOException {
+        if (dex.read() != 'd' || dex.read() != 'e' || dex.read() != 'x' || dex.read() != '\n') {
+            throw new IOException("Invalid dex file");
+        }
+
+        dex.skipTo(56);
+        int stringIdsSize = dex.readInt();
+        int stringIdsOffset = dex.readInt();
+        int typeIdsSize = dex.readInt();
+        int typeIdsOffset = dex.readInt();
+        dex.skipTo(96);
+        int classDefsSize = dex.readInt();
+        int classDefsOffset = dex.readInt();
+
+        dex.skipTo(stringIdsOffset);
+        int[] stringIds = dex.readInts(stringIdsSize);
+        dex.skipTo(typeIdsOffset);
+        int[] typeIds = dex.readInts(typeIdsSize);
+        dex.skipTo(classDefsOffset);
+        int[] descriptorOffsets = new int[classDefsSize];
+        for (int i = 0; i < classDefsSize; i++) {
+            descriptorOffsets[i] = stringIds[typeIds[dex.readInt()]];
+            dex.skipTo(dex.position() + 28);
+        }
+        Arrays.sort(descriptorOffsets);
+
+        byte[] descriptor = new byte[256];
+        ByteBuffer descriptorBuffer = ByteBuffer.wrap(descriptor);
+        for (int i = 0; i < descriptorOffsets.length; i++) {
+            if (i > 0 && descriptorOffsets[i] == descriptorOffsets[i - 1]) {
+                continue;
+            }
+            dex.skipTo(descriptorOffsets[i]);
+
+            //skip the uleb128 utf16 size
+            while ((dex.read() & 0x80) != 0) {
+            }
+
+            int length = 0;
+            int hash = 0;
+            int b;
+            while ((b = dex.read()) != 0) {
+                if (length == descriptor.length) {
+                    descriptor = Arrays.copyOf(descriptor, length * 2);
+                    descriptorBuffer = ByteBuffer.wrap(descriptor);
+                }
+                descriptor[length++] = (byte) b;
+                hash = 31 * hash + (byte) b;
+            }
+            descriptors.match(descriptorBuffer, 0, length, hash, found);
+        }
+    }
+
+    /**
+     * walks the class_defs of the dex file: class_def -> type_id -> string_id -> string_data (the descriptor)
+     */
+    private static void scanDex(MappedByteBuffer dex, Descriptors descriptors, boolean[] found) throws IOException {
+        dex.order(ByteOrder.LITTLE_ENDIAN);
+        if (dex.limit() < 0x70 || dex.get(0) != 'd' || dex.get(1) != 'e' || dex.get(2) != 'x' || dex.get(3) != '\n') {
+            throw new IOException("Invalid dex file");
+        }
+
+        int stringIdsOffset = dex.getInt(60);
+        int typeIdsOffset = dex.getInt(68);
+        int classDefsSize = dex.getInt(96);
+        int classDefsOffset = dex.getInt(100);
+
+        for (int i = 0; i < classDefsSize; i++) {
+            int classIdx = dex.getInt(classDefsOffset + i * 32);
+            int descriptorIdx = dex.getInt(typeIdsOffset + classIdx * 4);
+            int position = dex.getInt(stringIdsOffset + descriptorIdx * 4);
+
+            //skip the uleb128 utf16 size
+            while ((dex.get(position++) & 0x80) != 0) {
+            }
+
+            int start = position;
+            int hash = 0;
+            byte b;
+            while ((b = dex.get(position)) != 0) {
+                hash = 31 * hash + b;
+                position++;
+            }
+            descriptors.match(dex, start, position - start, hash, found);
+        }
+    }
+
+    /**
+     * the dex descriptors (Lcom/example/Foo;) of the classPaths, sorted by their hash
+     */
+    private static class Descriptors {
+        private final int[] hashes;
+        private final byte[][] bytes;
+        private final int[] libraryIndices;
+
+        Descriptors(Library[] libraries) {
+            ArrayList<byte[]> descriptorList = new ArrayList<>();
+            ArrayList<Integer> indexList = new ArrayList<>();
+            for (int i = 0; i < libraries.length; i++) {
+                String classPath = libraries[i].getClassPath();
+                if (!TextUtils.isEmpty(classPath)) {
+                    descriptorList.add(("L" + classPath.replace('.', '/') + ";").getBytes(UTF_8));
+                    indexList.add(i);
+                }
+            }
+
+            //sort by hash, so a hash can be found with a binary search without any allocation
+            int count = descriptorList.size();
+            long[] order = new long[count];
+            for (int i = 0; i < count; i++) {
+                order[i] = ((long) hash(descriptorList.get(i)) << 32) | i;
+            }
+            Arrays.sort(order);
+
+            hashes = new int[count];
+            bytes = new byte[count][];
+            libraryIndices = new int[count];
+            for (int i = 0; i < count; i++) {
+                int index = (int) order[i];
+                hashes[i] = (int) (order[i] >> 32);
+                bytes[i] = descriptorList.get(index);
+                libraryIndices[i] = indexList.get(index);
+            }
+        }
+
+        private static int hash(byte[] descriptor) {
+            int hash = 0;
+            for (byte b : descriptor) {
+                hash = 31 * hash + b;
+            }
+            return hash;
+        }
+
+        void match(ByteBuffer dex, int start, int length, int hash, boolean[] found) {
+            int index = Arrays.binarySearch(hashes, hash);
+            if (index < 0) {
+                return;
+            }
+            //several descriptors can share a hash, go to the first one
+            while (index > 0 && hashes[index - 1] == hash) {
+                index--;
+            }
+            for (; index < hashes.length && hashes[index] == hash; index++) {
+                if (equals(dex, start, length, bytes[index])) {
+                    found[libraryIndices[index]] = true;
+                }
+            }
+        }
+
+        private static boolean equals(ByteBuffer dex, int start, int length, byte[] descriptor) {
+            if (length != descriptor.length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (dex.get(start + i) != descriptor[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * reads a dex file forward only, keeping track of the offset within the dex
+     */
+    private static class DexStream {
+        private final InputStream in;
+        private long position = 0;
+
+        DexStream(InputStream in) {
+            this.in = in;
+        }
+
+        long position() {
+            return position;
+        }
+
+        int read() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Unexpected end of dex file");
+            }
+            position++;
+            return b;
+        }
+
+        int readInt() throws IOException {
+            return read() | (read() << 8) | (read() << 16) | (read() << 24);
+        }
+
+        int[] readInts(int count) throws IOException {
+            int[] values = new int[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = readInt();
+            }
+            return values;
+        }
+
+        void skipTo(long offset) throws IOException {
+            if (offset < position) {
+                throw new IOException("Unsupported dex layout");
+            }
+            while (position < offset) {
+                long skipped = in.skip(offset - position);
+                if (skipped <= 0) {
+                    //skip() may stop early, read() tells if the stream really ended
+                    read();
+                } else {
+                    position += skipped;
+                }
+            }
+        }
+    }
+
+    /**
+     * limits the stream to the compressed data of a single zip entry
+     */
+    private static class BoundedInputStream extends InputStream {
+        private final InputStream in;
+        private long remaining;
+
+        BoundedInputStream(InputStream in, long size) {
+            this.in = in;
+            this.remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(b, off, (int) Math.min(len, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+    }
+}
@@ -35,6 +35,29 @@ public class Library implements Comparable<Library> {
         this.libraryVersion = libraryVersion;
     }
 
+    /**
+     * Creates a copy of this library, changing the copy (or its license) does not change this library.
+     * The strings and the license definition are shared, so the copy is cheap
+     *
+     * @return the copy
+     */
+    public Library copy() {
+        Library library = new Library();
+        library.definedName = this.definedName;
+        library.internal = this.internal;
+        library.author = this.author;
+        library.authorWebsite = this.authorWebsite;
+        library.libraryName = this.libraryName;
+        library.libraryDescription = this.libraryDescription;
+        library.libraryVersion = this.libraryVersion;
+        library.libraryWebsite = this.libraryWebsite;
+        library.license = this.license != null ? this.license.copy() : null;
+        library.isOpenSource = this.isOpenSource;
+        library.repositoryLink = this.repositoryLink;
+        library.classPath = this.classPath;
+        return library;
+    }
+
     public String getDefinedName() {
         return definedName;
     }
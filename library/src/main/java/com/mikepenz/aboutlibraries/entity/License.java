@@ -1,9 +1,19 @@
 package com.mikepenz.aboutlibraries.entity;
 
+import com.mikepenz.aboutlibraries.util.TextTemplate;
+
+import java.util.Map;
+
 /**
  * Created by mikepenz on 08.06.14.
+ * <p>
+ * A License is either standalone, or an overlay on a shared LicenseDefinition. An overlay only keeps the
+ * variables of its library and the values set on it, everything else is read from the definition.
  */
 public class License {
+    private LicenseDefinition definition;
+    private Map<String, String> variables;
+
     private String definedName;
 
     private String licenseName;
@@ -21,11 +31,62 @@ public class License {
         this.licenseDescription = licenseDescription;
     }
 
+    /**
+     * @param definition the shared definition of this license
+     * @param variables  the variables to insert into the descriptions of the definition, or null to show them as defined
+     */
+    public License(LicenseDefinition definition, Map<String, String> variables) {
+        this.definition = definition;
+        this.variables = variables;
+    }
+
     public License copy() {
-        return new License(this.licenseName, this.licenseWebsite, this.licenseShortDescription, this.licenseDescription);
+        License license = new License(this.licenseName, this.licenseWebsite, this.licenseShortDescription, this.licenseDescription);
+        license.definition = this.definition;
+        license.variables = this.variables;
+        return license;
+    }
+
+    /**
+     * Creates a copy of this license with the variables inserted into the descriptions.
+     * The copy shares the definition of this license and does not render the descriptions now, but each time
+     * they are accessed. So it only keeps the variables and no text of its own.
+     *
+     * @param variables the variables to insert into the descriptions
+     * @return the copy
+     */
+    public License copy(Map<String, String> variables) {
+        License license = copy();
+        if (license.definition == null) {
+            //the values of a standalone license become the definition of the copy
+            license.definition = new LicenseDefinition(definedName, licenseName, licenseWebsite, licenseShortDescription, licenseDescription);
+            license.licenseName = null;
+            license.licenseWebsite = null;
+            license.licenseShortDescription = null;
+            license.licenseDescription = null;
+        }
+        license.variables = variables;
+        return license;
+    }
+
+    /**
+     * @return the shared definition of this license, or null if it is a standalone license
+     */
+    public LicenseDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * @return the variables inserted into the descriptions of the definition, or null
+     */
+    public Map<String, String> getVariables() {
+        return variables;
     }
 
     public String getDefinedName() {
+        if (definedName == null && definition != null) {
+            return definition.getDefinedName();
+        }
         return definedName;
     }
 
@@ -34,6 +95,9 @@ public class License {
     }
 
     public String getLicenseName() {
+        if (licenseName == null && definition != null) {
+            return definition.getLicenseName();
+        }
         return licenseName;
     }
 
@@ -42,6 +106,9 @@ public class License {
     }
 
     public String getLicenseWebsite() {
+        if (licenseWebsite == null && definition != null) {
+            return definition.getLicenseWebsite();
+        }
         return licenseWebsite;
     }
 
@@ -50,6 +117,9 @@ public class License {
     }
 
     public String getLicenseShortDescription() {
+        if (licenseShortDescription == null && definition != null) {
+            return render(definition.getLicenseShortDescription(), definition.getLicenseShortDescriptionTemplate());
+        }
         return licenseShortDescription;
     }
 
@@ -58,10 +128,47 @@ public class License {
     }
 
     public String getLicenseDescription() {
+        if (licenseDescription == null && definition != null) {
+            return render(definition.getLicenseDescription(), definition.getLicenseDescriptionTemplate());
+        }
         return licenseDescription;
     }
 
+    /**
+     * @return true if the license has a full text. Unlike getLicenseDescription() this never reads a bundled text
+     */
+    public boolean hasLicenseDescription() {
+        if (licenseDescription == null && definition != null) {
+            return definition.hasLicenseDescription();
+        }
+        return licenseDescription != null && licenseDescription.length() > 0;
+    }
+
+    /**
+     * compares the full texts of the licenses without rendering them. Copies of a license share its definition
+     * and variables, so they have the same text as long as neither of them got its own text
+     *
+     * @param other the license to compare with
+     * @return true if both licenses have the same full text
+     */
+    public boolean hasSameLicenseDescription(License other) {
+        if (other == this) {
+            return true;
+        }
+        return other != null
+                && definition == other.definition
+                && variables == other.variables
+                && (licenseDescription == null ? other.licenseDescription == null : licenseDescription.equals(other.licenseDescription));
+    }
+
     public void setLicenseDescription(String licenseDescription) {
         this.licenseDescription = licenseDescription;
     }
+
+    private String render(String text, TextTemplate template) {
+        if (variables == null || template == null) {
+            return text;
+        }
+        return template.render(variables);
+    }
 }
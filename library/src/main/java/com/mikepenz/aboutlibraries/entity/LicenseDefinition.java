@@ -0,0 +1,117 @@
+package com.mikepenz.aboutlibraries.entity;
+
+import com.mikepenz.aboutlibraries.catalog.LicenseTexts;
+import com.mikepenz.aboutlibraries.util.TextTemplate;
+
+import java.lang.ref.SoftReference;
+
+/**
+ * The immutable definition of a license, as loaded from the resources. It is shared by all License instances
+ * of libraries using this license, each of them only keeps its own variables and changed values.
+ * <p>
+ * The full text of a bundled license is read from the LicenseTexts only when it is accessed, and is only kept
+ * as long as there is enough memory.
+ */
+public final class LicenseDefinition {
+    private final String definedName;
+    private final String licenseName;
+    private final String licenseWebsite;
+    private final String licenseShortDescription;
+    private final String licenseDescription;
+    private final LicenseTexts licenseTexts;
+
+    //tokenized descriptions, created with the first library rendering them
+    private volatile TextTemplate licenseShortDescriptionTemplate;
+    private volatile SoftReference<TextTemplate> licenseDescriptionTemplate;
+    //the text read from the licenseTexts
+    private volatile SoftReference<String> loadedLicenseDescription;
+
+    public LicenseDefinition(String definedName, String licenseName, String licenseWebsite, String licenseShortDescription, String licenseDescription) {
+        this.definedName = definedName;
+        this.licenseName = licenseName;
+        this.licenseWebsite = licenseWebsite;
+        this.licenseShortDescription = licenseShortDescription;
+        this.licenseDescription = licenseDescription;
+        this.licenseTexts = null;
+    }
+
+    /**
+     * @param licenseTexts the bundled license texts, the text of this license is read from them when it is accessed
+     */
+    public LicenseDefinition(String definedName, String licenseName, String licenseWebsite, String licenseShortDescription, LicenseTexts licenseTexts) {
+        this.definedName = definedName;
+        this.licenseName = licenseName;
+        this.licenseWebsite = licenseWebsite;
+        this.licenseShortDescription = licenseShortDescription;
+        this.licenseDescription = null;
+        this.licenseTexts = licenseTexts;
+    }
+
+    public String getDefinedName() {
+        return definedName;
+    }
+
+    public String getLicenseName() {
+        return licenseName;
+    }
+
+    public String getLicenseWebsite() {
+        return licenseWebsite;
+    }
+
+    public String getLicenseShortDescription() {
+        return licenseShortDescription;
+    }
+
+    /**
+     * @return the full text of the license. If it is bundled it is decompressed on the first access, so don't call this on the main thread
+     */
+    public String getLicenseDescription() {
+        if (licenseTexts == null) {
+            return licenseDescription;
+        }
+        SoftReference<String> reference = loadedLicenseDescription;
+        String text = reference != null ? reference.get() : null;
+        if (text == null) {
+            text = licenseTexts.read(definedName);
+            loadedLicenseDescription = new SoftReference<>(text);
+        }
+        return text;
+    }
+
+    /**
+     * @return true if the full text is read from the bundled license texts
+     */
+    public boolean isLicenseDescriptionBundled() {
+        return licenseTexts != null;
+    }
+
+    /**
+     * @return true if the license has a full text, without reading it
+     */
+    public boolean hasLicenseDescription() {
+        return licenseTexts != null || (licenseDescription != null && licenseDescription.length() > 0);
+    }
+
+    TextTemplate getLicenseShortDescriptionTemplate() {
+        TextTemplate template = licenseShortDescriptionTemplate;
+        if (template == null && licenseShortDescription != null) {
+            template = TextTemplate.compile(licenseShortDescription);
+            licenseShortDescriptionTemplate = template;
+        }
+        return template;
+    }
+
+    TextTemplate getLicenseDescriptionTemplate() {
+        SoftReference<TextTemplate> reference = licenseDescriptionTemplate;
+        TextTemplate template = reference != null ? reference.get() : null;
+        if (template == null) {
+            String text = getLicenseDescription();
+            if (text != null) {
+                template = TextTemplate.compile(text);
+                licenseDescriptionTemplate = new SoftReference<>(template);
+            }
+        }
+        return template;
+    }
+}
@@ -72,7 +72,8 @@ public class LibsActivity extends AppCompatActivity {
         if (ab != null) {
             // Set StatusBar Color by Code
             if (bundle != null && bundle.containsKey(Libs.BUNDLE_COLORS)) {
-                Colors colors = (Colors) bundle.getSerializable(Libs.BUNDLE_COLORS);
+                Object colorsData = bundle.get(Libs.BUNDLE_COLORS);
+                Colors colors = colorsData instanceof Colors ? (Colors) colorsData : null;
                 if (colors != null) {
                     ab.setBackgroundDrawable(new ColorDrawable(colors.appBarColor));
                     if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
@@ -18,7 +18,7 @@ import com.mikepenz.aboutlibraries.LibsConfiguration;
 import com.mikepenz.aboutlibraries.R;
 import com.mikepenz.aboutlibraries.util.MovementCheck;
 import com.mikepenz.aboutlibraries.util.RippleForegroundListener;
-import com.mikepenz.aboutlibraries.util.UIUtils;
+import com.mikepenz.aboutlibraries.util.ThemeColors;
 import com.mikepenz.fastadapter.items.AbstractItem;
 import com.mikepenz.iconics.Iconics;
 
@@ -55,6 +55,16 @@ public class HeaderItem extends AbstractItem<HeaderItem, HeaderItem.ViewHolder>
         return this;
     }
 
+    public ThemeColors themeColors;
+
+    /**
+     * @param themeColors the colors resolved for the list, if not set they are resolved for the created ViewHolder
+     */
+    public HeaderItem withThemeColors(ThemeColors themeColors) {
+        this.themeColors = themeColors;
+        return this;
+    }
+
     @Override
     public boolean isSelectable() {
         return false;
@@ -257,7 +267,7 @@ public class HeaderItem extends AbstractItem<HeaderItem, HeaderItem.ViewHolder>
 
     @Override
     public ViewHolder getViewHolder(View v) {
-        return new ViewHolder(v);
+        return new ViewHolder(v, themeColors != null ? themeColors : ThemeColors.resolve(v.getContext()));
     }
 
     /**
@@ -275,22 +285,26 @@ public class HeaderItem extends AbstractItem<HeaderItem, HeaderItem.ViewHolder>
         TextView aboutAppDescription;
 
         public ViewHolder(View headerView) {
+            this(headerView, ThemeColors.resolve(headerView.getContext()));
+        }
+
+        public ViewHolder(View headerView, ThemeColors themeColors) {
             super(headerView);
 
             //get the about this app views
             aboutIcon = (ImageView) headerView.findViewById(R.id.aboutIcon);
             aboutAppName = (TextView) headerView.findViewById(R.id.aboutName);
-            aboutAppName.setTextColor(UIUtils.getThemeColorFromAttrOrRes(headerView.getContext(), R.attr.about_libraries_title_description, R.color.about_libraries_title_description));
+            aboutAppName.setTextColor(themeColors.titleDescription);
             aboutSpecialContainer = headerView.findViewById(R.id.aboutSpecialContainer);
             aboutSpecial1 = (Button) headerView.findViewById(R.id.aboutSpecial1);
             aboutSpecial2 = (Button) headerView.findViewById(R.id.aboutSpecial2);
             aboutSpecial3 = (Button) headerView.findViewById(R.id.aboutSpecial3);
             aboutVersion = (TextView) headerView.findViewById(R.id.aboutVersion);
-            aboutVersion.setTextColor(UIUtils.getThemeColorFromAttrOrRes(headerView.getContext(), R.attr.about_libraries_text_description, R.color.about_libraries_text_description));
+            aboutVersion.setTextColor(themeColors.textDescription);
             aboutDivider = headerView.findViewById(R.id.aboutDivider);
-            aboutDivider.setBackgroundColor(UIUtils.getThemeColorFromAttrOrRes(headerView.getContext(), R.attr.about_libraries_divider_description, R.color.about_libraries_divider_description));
+            aboutDivider.setBackgroundColor(themeColors.dividerDescription);
             aboutAppDescription = (TextView) headerView.findViewById(R.id.aboutDescription);
-            aboutAppDescription.setTextColor(UIUtils.getThemeColorFromAttrOrRes(headerView.getContext(), R.attr.about_libraries_text_description, R.color.about_libraries_text_description));
+            aboutAppDescription.setTextColor(themeColors.textDescription);
         }
     }
 }
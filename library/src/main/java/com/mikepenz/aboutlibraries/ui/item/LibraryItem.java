@@ -1,12 +1,13 @@
 package com.mikepenz.aboutlibraries.ui.item;
 
+import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
 import android.support.v7.app.AlertDialog;
 import android.support.v7.widget.CardView;
 import android.support.v7.widget.RecyclerView;
-import android.text.Html;
+import android.text.Spanned;
 import android.text.TextUtils;
 import android.view.View;
 import android.widget.TextView;
@@ -15,8 +16,9 @@ import com.mikepenz.aboutlibraries.LibsBuilder;
 import com.mikepenz.aboutlibraries.LibsConfiguration;
 import com.mikepenz.aboutlibraries.R;
 import com.mikepenz.aboutlibraries.entity.Library;
+import com.mikepenz.aboutlibraries.util.HtmlCache;
 import com.mikepenz.aboutlibraries.util.RippleForegroundListener;
-import com.mikepenz.aboutlibraries.util.UIUtils;
+import com.mikepenz.aboutlibraries.util.ThemeColors;
 import com.mikepenz.fastadapter.items.AbstractItem;
 
 import java.util.List;
@@ -26,7 +28,8 @@ import java.util.List;
  * Created by mikepenz on 28.12.15.
  */
 public class LibraryItem extends AbstractItem<LibraryItem, LibraryItem.ViewHolder> {
-    private RippleForegroundListener rippleForegroundListener = new RippleForegroundListener(R.id.rippleForegroundListenerView);
+    //it keeps no state, so all items share it
+    private static final RippleForegroundListener RIPPLE_FOREGROUND_LISTENER = new RippleForegroundListener(R.id.rippleForegroundListenerView);
 
     public Library library;
 
@@ -43,6 +46,16 @@ public class LibraryItem extends AbstractItem<LibraryItem, LibraryItem.ViewHolde
         return this;
     }
 
+    public ThemeColors themeColors;
+
+    /**
+     * @param themeColors the colors resolved for the list, if not set they are resolved for each created ViewHolder
+     */
+    public LibraryItem withThemeColors(ThemeColors themeColors) {
+        this.themeColors = themeColors;
+        return this;
+    }
+
     /**
      * defines the type defining this item. must be unique. preferably an id
      *
@@ -74,19 +87,17 @@ public class LibraryItem extends AbstractItem<LibraryItem, LibraryItem.ViewHolde
      * @param holder the viewHolder of this item
      */
     @Override
-    public void bindView(final ViewHolder holder, List<Object> payloads) {
+    public void bindView(ViewHolder holder, List<Object> payloads) {
         super.bindView(holder, payloads);
 
-        //ctx
-        final Context ctx = holder.itemView.getContext();
-
         //Set texts
         holder.libraryName.setText(library.getLibraryName());
         holder.libraryCreator.setText(library.getAuthor());
         if (TextUtils.isEmpty(library.getLibraryDescription())) {
             holder.libraryDescription.setText(library.getLibraryDescription());
         } else {
-            holder.libraryDescription.setText(Html.fromHtml(library.getLibraryDescription()));
+            //parsed while loading, so this is usually just a lookup
+            holder.libraryDescription.setText(HtmlCache.getLibraryDescription(library));
         }
 
         //Set License or Version Text
@@ -110,37 +121,15 @@ public class LibraryItem extends AbstractItem<LibraryItem, LibraryItem.ViewHolde
         }
 
 
+        //the holder handles the clicks for the library it currently shows, no listeners are created while binding
+        holder.library = library;
+        holder.libsBuilder = libsBuilder;
+
         //Define onClickListener
         if (!TextUtils.isEmpty(library.getAuthorWebsite())) {
-            holder.libraryCreator.setOnTouchListener(rippleForegroundListener);
-            holder.libraryCreator.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View view) {
-                    boolean consumed = false;
-                    if (LibsConfiguration.getInstance().getListener() != null) {
-                        consumed = LibsConfiguration.getInstance().getListener().onLibraryAuthorClicked(view, library);
-                    }
-
-                    if (!consumed) {
-                        openAuthorWebsite(ctx, library.getAuthorWebsite());
-                    }
-                }
-            });
-            holder.libraryCreator.setOnLongClickListener(new View.OnLongClickListener() {
-                @Override
-                public boolean onLongClick(View v) {
-                    boolean consumed = false;
-                    if (LibsConfiguration.getInstance().getListener() != null) {
-                        consumed = LibsConfiguration.getInstance().getListener().onLibraryAuthorLongClicked(v, library);
-                    }
-
-                    if (!consumed) {
-                        openAuthorWebsite(ctx, library.getAuthorWebsite());
-                        consumed = true;
-                    }
-                    return consumed;
-                }
-            });
+            holder.libraryCreator.setOnTouchListener(RIPPLE_FOREGROUND_LISTENER);
+            holder.libraryCreator.setOnClickListener(holder);
+            holder.libraryCreator.setOnLongClickListener(holder);
         } else {
             holder.libraryCreator.setOnTouchListener(null);
             holder.libraryCreator.setOnClickListener(null);
@@ -148,35 +137,9 @@ public class LibraryItem extends AbstractItem<LibraryItem, LibraryItem.ViewHolde
         }
 
         if (!TextUtils.isEmpty(library.getLibraryWebsite()) || !TextUtils.isEmpty(library.getRepositoryLink())) {
-            holder.libraryDescription.setOnTouchListener(rippleForegroundListener);
-            holder.libraryDescription.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View v) {
-                    boolean consumed = false;
-                    if (LibsConfiguration.getInstance().getListener() != null) {
-                        consumed = LibsConfiguration.getInstance().getListener().onLibraryContentClicked(v, library);
-                    }
-
-                    if (!consumed) {
-                        openLibraryWebsite(ctx, library.getLibraryWebsite() != null ? library.getLibraryWebsite() : library.getRepositoryLink());
-                    }
-                }
-            });
-            holder.libraryDescription.setOnLongClickListener(new View.OnLongClickListener() {
-                @Override
-                public boolean onLongClick(View v) {
-                    boolean consumed = false;
-                    if (LibsConfiguration.getInstance().getListener() != null) {
-                        consumed = LibsConfiguration.getInstance().getListener().onLibraryContentLongClicked(v, library);
-                    }
-
-                    if (!consumed) {
-                        openLibraryWebsite(ctx, library.getLibraryWebsite() != null ? library.getLibraryWebsite() : library.getRepositoryLink());
-                        consumed = true;
-                    }
-                    return consumed;
-                }
-            });
+            holder.libraryDescription.setOnTouchListener(RIPPLE_FOREGROUND_LISTENER);
+            holder.libraryDescription.setOnClickListener(holder);
+            holder.libraryDescription.setOnLongClickListener(holder);
         } else {
             holder.libraryDescription.setOnTouchListener(null);
             holder.libraryDescription.setOnClickListener(null);
@@ -184,40 +147,13 @@ public class LibraryItem extends AbstractItem<LibraryItem, LibraryItem.ViewHolde
         }
 
         if (library.getLicense() != null && (!TextUtils.isEmpty(library.getLicense().getLicenseWebsite()) || libsBuilder.showLicenseDialog)) {
-            holder.libraryBottomContainer.setOnTouchListener(rippleForegroundListener);
-            holder.libraryBottomContainer.setOnClickListener(new View.OnClickListener() {
-                @Override
-                public void onClick(View view) {
-                    boolean consumed = false;
-                    if (LibsConfiguration.getInstance().getListener() != null) {
-                        consumed = LibsConfiguration.getInstance().getListener().onLibraryBottomClicked(view, library);
-                    }
-
-                    if (!consumed) {
-                        openLicense(ctx, libsBuilder, library);
-                    }
-                }
-            });
-            holder.libraryBottomContainer.setOnLongClickListener(new View.OnLongClickListener() {
-                @Override
-                public boolean onLongClick(View v) {
-                    boolean consumed = false;
-                    if (LibsConfiguration.getInstance().getListener() != null) {
-                        consumed = LibsConfiguration.getInstance().getListener().onLibraryBottomLongClicked(v, library);
-                    }
-
-                    if (!consumed) {
-                        openLicense(ctx, libsBuilder, library);
-                        consumed = true;
-                    }
-                    return consumed;
-                }
-            });
+            holder.libraryBottomContainer.setOnTouchListener(RIPPLE_FOREGROUND_LISTENER);
+            holder.libraryBottomContainer.setOnClickListener(holder);
+            holder.libraryBottomContainer.setOnLongClickListener(holder);
         } else {
             holder.libraryBottomContainer.setOnTouchListener(null);
             holder.libraryBottomContainer.setOnClickListener(null);
             holder.libraryBottomContainer.setOnLongClickListener(null);
-
         }
 
         //notify the libsRecyclerViewListener to allow modifications
@@ -226,13 +162,20 @@ public class LibraryItem extends AbstractItem<LibraryItem, LibraryItem.ViewHolde
         }
     }
 
+    @Override
+    public void unbindView(ViewHolder holder) {
+        super.unbindView(holder);
+        holder.library = null;
+        holder.libsBuilder = null;
+    }
+
     /**
      * helper method to open the author website
      *
      * @param ctx           Context for startActivity
      * @param authorWebsite Url to lib-website
      */
-    private void openAuthorWebsite(Context ctx, String authorWebsite) {
+    private static void openAuthorWebsite(Context ctx, String authorWebsite) {
         try {
             Intent browserIntent = new Intent(Intent.ACTION_VIEW, Uri.parse(authorWebsite));
             ctx.startActivity(browserIntent);
@@ -246,7 +189,7 @@ public class LibraryItem extends AbstractItem<LibraryItem, LibraryItem.ViewHolde
      * @param ctx            Context for startActivity
      * @param libraryWebsite Url to lib-website
      */
-    private void openLibraryWebsite(Context ctx, String libraryWebsite) {
+    private static void openLibraryWebsite(Context ctx, String libraryWebsite) {
         try {
             Intent browserIntent = new Intent(Intent.ACTION_VIEW, Uri.parse(libraryWebsite));
             ctx.startActivity(browserIntent);
@@ -261,30 +204,73 @@ public class LibraryItem extends AbstractItem<LibraryItem, LibraryItem.ViewHolde
      * @param libsBuilder
      * @param library
      */
-    private void openLicense(Context ctx, LibsBuilder libsBuilder, Library library) {
+    private static void openLicense(final Context ctx, LibsBuilder libsBuilder, final Library library) {
         try {
-            if (libsBuilder.showLicenseDialog && !TextUtils.isEmpty(library.getLicense().getLicenseDescription())) {
-                AlertDialog.Builder builder = new AlertDialog.Builder(ctx);
-                builder.setMessage(Html.fromHtml(library.getLicense().getLicenseDescription()));
-                builder.create().show();
+            if (libsBuilder.showLicenseDialog && library.getLicense().hasLicenseDescription()) {
+                //the license text is read and parsed in the background, it may be long
+                HtmlCache.loadLicenseDescription(library, new HtmlCache.Callback() {
+                    @Override
+                    public void onParsed(Spanned text) {
+                        if (text != null) {
+                            showLicenseDialog(ctx, text);
+                        } else {
+                            openLicenseWebsite(ctx, library.getLicense().getLicenseWebsite());
+                        }
+                    }
+                });
             } else {
-                Intent browserIntent = new Intent(Intent.ACTION_VIEW, Uri.parse(library.getLicense().getLicenseWebsite()));
-                ctx.startActivity(browserIntent);
+                openLicenseWebsite(ctx, library.getLicense().getLicenseWebsite());
             }
         } catch (Exception ex) {
         }
     }
 
+    /**
+     * helper method to open the license website
+     *
+     * @param ctx            Context for startActivity
+     * @param licenseWebsite Url to the license
+     */
+    private static void openLicenseWebsite(Context ctx, String licenseWebsite) {
+        try {
+            Intent browserIntent = new Intent(Intent.ACTION_VIEW, Uri.parse(licenseWebsite));
+            ctx.startActivity(browserIntent);
+        } catch (Exception ex) {
+        }
+    }
+
+    /**
+     * helper method to show the license dialog
+     *
+     * @param ctx  Context for the dialog
+     * @param text the parsed license text
+     */
+    private static void showLicenseDialog(Context ctx, Spanned text) {
+        if (text == null || (ctx instanceof Activity && ((Activity) ctx).isFinishing())) {
+            return;
+        }
+        try {
+            AlertDialog.Builder builder = new AlertDialog.Builder(ctx);
+            builder.setMessage(text);
+            builder.create().show();
+        } catch (Exception ex) {
+        }
+    }
+
     @Override
     public ViewHolder getViewHolder(View v) {
-        return new ViewHolder(v);
+        return new ViewHolder(v, themeColors != null ? themeColors : ThemeColors.resolve(v.getContext()));
     }
 
     /**
      * our ViewHolder
      */
 
-    public static class ViewHolder extends RecyclerView.ViewHolder {
+    public static class ViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener, View.OnLongClickListener {
+        //the library currently bound to this holder
+        Library library;
+        LibsBuilder libsBuilder;
+
         CardView card;
 
         TextView libraryName;
@@ -299,28 +285,100 @@ public class LibraryItem extends AbstractItem<LibraryItem, LibraryItem.ViewHolde
         TextView libraryLicense;
 
         public ViewHolder(View itemView) {
+            this(itemView, ThemeColors.resolve(itemView.getContext()));
+        }
+
+        public ViewHolder(View itemView, ThemeColors themeColors) {
             super(itemView);
             card = (CardView) itemView;
-            card.setCardBackgroundColor(UIUtils.getThemeColorFromAttrOrRes(itemView.getContext(), R.attr.about_libraries_card, R.color.about_libraries_card));
+            card.setCardBackgroundColor(themeColors.card);
 
             libraryName = (TextView) itemView.findViewById(R.id.libraryName);
-            libraryName.setTextColor(UIUtils.getThemeColorFromAttrOrRes(itemView.getContext(), R.attr.about_libraries_title_openSource, R.color.about_libraries_title_openSource));
+            libraryName.setTextColor(themeColors.titleOpenSource);
             libraryCreator = (TextView) itemView.findViewById(R.id.libraryCreator);
-            libraryCreator.setTextColor(UIUtils.getThemeColorFromAttrOrRes(itemView.getContext(), R.attr.about_libraries_text_openSource, R.color.about_libraries_text_openSource));
+            libraryCreator.setTextColor(themeColors.textOpenSource);
             libraryDescriptionDivider = itemView.findViewById(R.id.libraryDescriptionDivider);
-            libraryDescriptionDivider.setBackgroundColor(UIUtils.getThemeColorFromAttrOrRes(itemView.getContext(), R.attr.about_libraries_dividerLight_openSource, R.color.about_libraries_dividerLight_openSource));
+            libraryDescriptionDivider.setBackgroundColor(themeColors.dividerLightOpenSource);
             libraryDescription = (TextView) itemView.findViewById(R.id.libraryDescription);
-            libraryDescription.setTextColor(UIUtils.getThemeColorFromAttrOrRes(itemView.getContext(), R.attr.about_libraries_text_openSource, R.color.about_libraries_text_openSource));
+            libraryDescription.setTextColor(themeColors.textOpenSource);
 
             libraryBottomDivider = itemView.findViewById(R.id.libraryBottomDivider);
-            libraryBottomDivider.setBackgroundColor(UIUtils.getThemeColorFromAttrOrRes(itemView.getContext(), R.attr.about_libraries_dividerLight_openSource, R.color.about_libraries_dividerLight_openSource));
+            libraryBottomDivider.setBackgroundColor(themeColors.dividerLightOpenSource);
             libraryBottomContainer = itemView.findViewById(R.id.libraryBottomContainer);
 
             libraryVersion = (TextView) itemView.findViewById(R.id.libraryVersion);
-            libraryVersion.setTextColor(UIUtils.getThemeColorFromAttrOrRes(itemView.getContext(), R.attr.about_libraries_text_openSource, R.color.about_libraries_text_openSource));
+            libraryVersion.setTextColor(themeColors.textOpenSource);
             libraryLicense = (TextView) itemView.findViewById(R.id.libraryLicense);
-            libraryLicense.setTextColor(UIUtils.getThemeColorFromAttrOrRes(itemView.getContext(), R.attr.about_libraries_text_openSource, R.color.about_libraries_text_openSource));
+            libraryLicense.setTextColor(themeColors.textOpenSource);
+
+        }
 
+        @Override
+        public void onClick(View v) {
+            if (library == null) {
+                return;
+            }
+
+            LibsConfiguration.LibsListener listener = LibsConfiguration.getInstance().getListener();
+            boolean consumed = false;
+            if (v == libraryCreator) {
+                if (listener != null) {
+                    consumed = listener.onLibraryAuthorClicked(v, library);
+                }
+                if (!consumed) {
+                    openAuthorWebsite(v.getContext(), library.getAuthorWebsite());
+                }
+            } else if (v == libraryDescription) {
+                if (listener != null) {
+                    consumed = listener.onLibraryContentClicked(v, library);
+                }
+                if (!consumed) {
+                    openLibraryWebsite(v.getContext(), library.getLibraryWebsite() != null ? library.getLibraryWebsite() : library.getRepositoryLink());
+                }
+            } else if (v == libraryBottomContainer) {
+                if (listener != null) {
+                    consumed = listener.onLibraryBottomClicked(v, library);
+                }
+                if (!consumed) {
+                    openLicense(v.getContext(), libsBuilder, library);
+                }
+            }
+        }
+
+        @Override
+        public boolean onLongClick(View v) {
+            if (library == null) {
+                return false;
+            }
+
+            LibsConfiguration.LibsListener listener = LibsConfiguration.getInstance().getListener();
+            boolean consumed = false;
+            if (v == libraryCreator) {
+                if (listener != null) {
+                    consumed = listener.onLibraryAuthorLongClicked(v, library);
+                }
+                if (!consumed) {
+                    openAuthorWebsite(v.getContext(), library.getAuthorWebsite());
+                    consumed = true;
+                }
+            } else if (v == libraryDescription) {
+                if (listener != null) {
+                    consumed = listener.onLibraryContentLongClicked(v, library);
+                }
+                if (!consumed) {
+                    openLibraryWebsite(v.getContext(), library.getLibraryWebsite() != null ? library.getLibraryWebsite() : library.getRepositoryLink());
+                    consumed = true;
+                }
+            } else if (v == libraryBottomContainer) {
+                if (listener != null) {
+                    consumed = listener.onLibraryBottomLongClicked(v, library);
+                }
+                if (!consumed) {
+                    openLicense(v.getContext(), libsBuilder, library);
+                    consumed = true;
+                }
+            }
+            return consumed;
         }
     }
 }
@@ -0,0 +1,77 @@
+package com.mikepenz.aboutlibraries.util;
+
+/**
+ * A small open addressing hash table with case insensitive String keys.
+ * Lookups neither lowercase the key nor allocate, the hash is computed over the characters directly.
+ * The first value put for a key wins, later ones are ignored.
+ * <p>
+ * The index is not synchronized, it is meant to be filled once and only read afterwards.
+ */
+public class CaseInsensitiveIndex<T> {
+    private final String[] keys;
+    private final Object[] values;
+    private final int mask;
+
+    /**
+     * @param expectedSize the maximum number of keys which will be put into this index
+     */
+    public CaseInsensitiveIndex(int expectedSize) {
+        //keep the load factor below 0.5
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 2) * 2) * 2;
+        this.keys = new String[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * adds the value for the given key, if there is no value for it yet
+     *
+     * @param key   the key, null keys are ignored
+     * @param value the value
+     */
+    public void putIfAbsent(String key, T value) {
+        if (key == null) {
+            return;
+        }
+        int slot = hash(key) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equalsIgnoreCase(key)) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    /**
+     * @param key the key (NOT case sensitive)
+     * @return the value or null if there is none for the key
+     */
+    @SuppressWarnings("unchecked")
+    public T get(String key) {
+        if (key == null) {
+            return null;
+        }
+        int slot = hash(key) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equalsIgnoreCase(key)) {
+                return (T) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    /**
+     * the same folding as String.equalsIgnoreCase() uses, so keys which are equal ignoring the case have the same hash
+     */
+    private static int hash(String key) {
+        int h = 0;
+        for (int i = 0; i < key.length(); i++) {
+            h = 31 * h + Character.toLowerCase(Character.toUpperCase(key.charAt(i)));
+        }
+        //spread the bits, the table uses the low bits only
+        return h ^ (h >>> 16);
+    }
+}
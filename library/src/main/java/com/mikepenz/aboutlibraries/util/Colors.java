@@ -1,13 +1,14 @@
 package com.mikepenz.aboutlibraries.util;
 
 import android.os.Parcel;
+import android.os.Parcelable;
 
 import java.io.Serializable;
 
 /**
  * Created by Yoav.
  */
-public class Colors implements Serializable {
+public class Colors implements Serializable, Parcelable {
     public int appBarColor;
     public int statusBarColor;
 
@@ -20,4 +21,27 @@ public class Colors implements Serializable {
         this.appBarColor = in.readInt();
         this.statusBarColor = in.readInt();
     }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(appBarColor);
+        dest.writeInt(statusBarColor);
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    public static final Creator<Colors> CREATOR = new Creator<Colors>() {
+        @Override
+        public Colors createFromParcel(Parcel in) {
+            return new Colors(in);
+        }
+
+        @Override
+        public Colors[] newArray(int size) {
+            return new Colors[size];
+        }
+    };
 }
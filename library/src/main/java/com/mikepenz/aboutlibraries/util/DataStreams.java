@@ -0,0 +1,91 @@
+package com.mikepenz.aboutlibraries.util;
+
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Helpers to write nullable strings and string maps to binary files (e.g. the LibsSnapshot).
+ * Unlike writeUTF() the strings are not limited to 64 KB, as the texts of licenses may be longer.
+ * <p>
+ * The read methods check every length against the bytes available in the stream before allocating anything, so
+ * a corrupt file fails with an IOException. The stream has to know its remaining size exactly, e.g. a stream over
+ * a byte array holding the file.
+ */
+public class DataStreams {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private DataStreams() {
+    }
+
+    public static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    public static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.available()) {
+            throw new IOException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    public static void writeMap(DataOutput out, Map<String, String> map) throws IOException {
+        if (map == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(map.size());
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        }
+    }
+
+    public static HashMap<String, String> readMap(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        //each entry takes at least the two lengths
+        checkCount(in, size, 8);
+        HashMap<String, String> map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readString(in));
+        }
+        return map;
+    }
+
+    /**
+     * reads the number of entries which follow
+     *
+     * @param in           the input to read from
+     * @param minEntrySize the minimum number of bytes of each entry
+     * @return the number of entries
+     */
+    public static int readCount(DataInputStream in, int minEntrySize) throws IOException {
+        int count = in.readInt();
+        checkCount(in, count, minEntrySize);
+        return count;
+    }
+
+    private static void checkCount(DataInputStream in, int count, int minEntrySize) throws IOException {
+        if (count < 0 || (long) count * minEntrySize > in.available()) {
+            throw new IOException("Invalid count " + count);
+        }
+    }
+}
@@ -9,14 +9,29 @@ import com.mikepenz.aboutlibraries.Libs;
  * Created by mikepenz on 03.08.15.
  */
 public class GenericsUtil {
+    /**
+     * the class generated by gradle-aboutlibraries.gradle which lists all define_ fields of the app
+     */
+    private static final String GENERATED_FIELDS_CLASS = "com.mikepenz.aboutlibraries.generated.AboutLibrariesFields";
+
+    private static final String[] NO_GENERATED_FIELDS = new String[0];
+
+    private static volatile String[] generatedFields;
+    private static volatile String[] generatedDetected;
 
     /**
      * a helper to get the string fields from the R class
+     * if the generated field index is available it is used instead of reflecting over the R class
      *
      * @param ctx
      * @return
      */
     public static String[] getFields(Context ctx) {
+        String[] fields = getGeneratedFields();
+        if (fields != null) {
+            return fields;
+        }
+
         Class rStringClass = resolveRClass(ctx.getPackageName());
         if (rStringClass != null) {
             return Libs.toStringArray(rStringClass.getFields());
@@ -24,6 +39,42 @@ public class GenericsUtil {
         return new String[0];
     }
 
+    /**
+     * a helper to get the fields of the generated field index (see gradle-aboutlibraries.gradle)
+     *
+     * @return the define_ fields or null if the index was not generated for this app
+     */
+    public static String[] getGeneratedFields() {
+        String[] fields = generatedFields;
+        if (fields == null) {
+            try {
+                fields = (String[]) Class.forName(GENERATED_FIELDS_CLASS).getField("FIELDS").get(null);
+            } catch (Exception e) {
+                fields = NO_GENERATED_FIELDS;
+            }
+            generatedFields = fields;
+        }
+        return fields == NO_GENERATED_FIELDS ? null : fields;
+    }
+
+    /**
+     * a helper to get the libraries detected at build time (see gradle-aboutlibraries.gradle)
+     *
+     * @return the definedNames of the detected libraries or null if the detection did not run for this app
+     */
+    public static String[] getGeneratedDetected() {
+        String[] detected = generatedDetected;
+        if (detected == null) {
+            try {
+                detected = (String[]) Class.forName(GENERATED_FIELDS_CLASS).getField("DETECTED").get(null);
+            } catch (Exception e) {
+                detected = NO_GENERATED_FIELDS;
+            }
+            generatedDetected = detected;
+        }
+        return detected == NO_GENERATED_FIELDS ? null : detected;
+    }
+
     /**
      * a helper class to resolve the correct R Class for the package
      *
@@ -0,0 +1,145 @@
+package com.mikepenz.aboutlibraries.util;
+
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Html;
+import android.text.Spanned;
+import android.text.TextUtils;
+import android.util.LruCache;
+
+import com.mikepenz.aboutlibraries.entity.Library;
+import com.mikepenz.aboutlibraries.entity.License;
+
+import java.util.List;
+
+/**
+ * Keeps the parsed html of the library descriptions and license texts, so binding a library only sets the text.
+ * <p>
+ * The entries are keyed by the definedName of the library. A description entry remembers the html it was parsed
+ * from, a license entry the license it was parsed for, as rendering the license text just to compare it would
+ * cost as much as parsing it. An entry is only used as long as the library still has the same text, so modified
+ * libraries are parsed again.
+ */
+public class HtmlCache {
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+
+    //the descriptions are short and shown in the list, the license texts are long and only shown in the dialog
+    private static final LruCache<String, Entry> DESCRIPTIONS = new LruCache<>(256);
+    private static final LruCache<String, LicenseEntry> LICENSE_DESCRIPTIONS = new LruCache<>(16);
+
+    /**
+     * receives a parsed text on the main thread
+     */
+    public interface Callback {
+        void onParsed(Spanned text);
+    }
+
+    private static class Entry {
+        final String html;
+        final Spanned text;
+
+        Entry(String html, Spanned text) {
+            this.html = html;
+            this.text = text;
+        }
+    }
+
+    private static class LicenseEntry {
+        final License license;
+        final Spanned text;
+
+        LicenseEntry(License license, Spanned text) {
+            this.license = license;
+            this.text = text;
+        }
+    }
+
+    private HtmlCache() {
+    }
+
+    /**
+     * parses the descriptions of the libraries which are not cached yet. Meant to be called while loading, off the main thread
+     *
+     * @param libraries the libraries to parse the descriptions of
+     */
+    public static void prepareLibraryDescriptions(List<Library> libraries) {
+        for (Library library : libraries) {
+            getLibraryDescription(library);
+        }
+    }
+
+    /**
+     * @param library the library
+     * @return the parsed description of the library, from the cache if it was parsed before. null if the library has no description
+     */
+    public static Spanned getLibraryDescription(Library library) {
+        return get(DESCRIPTIONS, library.getDefinedName(), library.getLibraryDescription());
+    }
+
+    /**
+     * delivers the parsed license text of the library. The text is read (bundled texts are decompressed) and parsed
+     * in the background, unless it is cached
+     *
+     * @param library  the library
+     * @param callback the callback to deliver the text to on the main thread, null is delivered if the library has no license text
+     */
+    public static void loadLicenseDescription(final Library library, final Callback callback) {
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Spanned text = getLicenseDescription(library);
+                MAIN_HANDLER.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onParsed(text);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * removes all parsed texts
+     */
+    public static void clear() {
+        DESCRIPTIONS.evictAll();
+        LICENSE_DESCRIPTIONS.evictAll();
+    }
+
+    private static Spanned getLicenseDescription(Library library) {
+        License license = library.getLicense();
+        if (license == null) {
+            return null;
+        }
+        String key = library.getDefinedName();
+        LicenseEntry entry = key != null ? LICENSE_DESCRIPTIONS.get(key) : null;
+        if (entry != null && license.hasSameLicenseDescription(entry.license)) {
+            return entry.text;
+        }
+
+        //only rendered (and read, if it is bundled) if it is not cached
+        String html = license.getLicenseDescription();
+        Spanned text = TextUtils.isEmpty(html) ? null : Html.fromHtml(html);
+        if (key != null && text != null) {
+            LICENSE_DESCRIPTIONS.put(key, new LicenseEntry(license, text));
+        }
+        return text;
+    }
+
+    private static Spanned get(LruCache<String, Entry> cache, String key, String html) {
+        if (TextUtils.isEmpty(html)) {
+            return null;
+        }
+        if (key == null) {
+            return Html.fromHtml(html);
+        }
+
+        Entry entry = cache.get(key);
+        if (entry == null || !entry.html.equals(html)) {
+            entry = new Entry(html, Html.fromHtml(html));
+            cache.put(key, entry);
+        }
+        return entry.text;
+    }
+}
@@ -0,0 +1,233 @@
+package com.mikepenz.aboutlibraries.util;
+
+import com.mikepenz.aboutlibraries.entity.Library;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A search index over the libraryName, definedName, author and description of libraries.
+ * <p>
+ * The lowercased fields are prepared once, and a trigram index maps every 3 character sequence to the
+ * libraries containing it. A query of 3 or more characters only verifies the libraries of its rarest
+ * trigram, shorter queries check the prepared fields of all libraries. Neither lowercases the libraries again.
+ * <p>
+ * find() matches the name and the definedName, the results keep the order the libraries were indexed in.
+ * search() also matches the author and the description and ranks the results: a match in the name beats one in
+ * the definedName, the author and the description (in this order), and an exact match beats a prefix, a word
+ * prefix and any other substring match. Equally ranked libraries keep the order they were indexed in.
+ * <p>
+ * The index is immutable, it has to be rebuilt if the libraries change.
+ */
+public class LibrarySearchIndex {
+    private static final int FIELD_NAME = 0;
+    private static final int FIELD_DEFINED_NAME = 1;
+    private static final int FIELD_AUTHOR = 2;
+    private static final int FIELD_DESCRIPTION = 3;
+    private static final int FIELD_COUNT = 4;
+
+    private static final int[] FIELD_WEIGHT = {8, 6, 2, 1};
+
+    private static final int MATCH_EXACT = 4;
+    private static final int MATCH_PREFIX = 3;
+    private static final int MATCH_WORD_PREFIX = 2;
+    private static final int MATCH_CONTAINS = 1;
+
+    //marks a query which has to check every library
+    private static final int[] ALL = new int[0];
+
+    private final Library[] libraries;
+    //lowercased fields, [library][field]
+    private final String[][] fields;
+    //trigram -> sorted indices of the libraries containing it
+    private final HashMap<Long, int[]> trigrams = new HashMap<>();
+
+    /**
+     * @param libraries the libraries to index, in the order equally ranked results are returned
+     */
+    public LibrarySearchIndex(List<Library> libraries) {
+        this.libraries = libraries.toArray(new Library[libraries.size()]);
+        this.fields = new String[this.libraries.length][];
+
+        HashMap<Long, Posting> postings = new HashMap<>();
+        for (int i = 0; i < this.libraries.length; i++) {
+            Library library = this.libraries[i];
+            String[] libraryFields = new String[FIELD_COUNT];
+            libraryFields[FIELD_NAME] = lowerCase(library.getLibraryName());
+            libraryFields[FIELD_DEFINED_NAME] = lowerCase(library.getDefinedName());
+            libraryFields[FIELD_AUTHOR] = lowerCase(library.getAuthor());
+            libraryFields[FIELD_DESCRIPTION] = lowerCase(library.getLibraryDescription());
+            fields[i] = libraryFields;
+
+            for (String field : libraryFields) {
+                for (int pos = 0; pos + 3 <= field.length(); pos++) {
+                    Long trigram = trigram(field, pos);
+                    Posting posting = postings.get(trigram);
+                    if (posting == null) {
+                        posting = new Posting();
+                        postings.put(trigram, posting);
+                    }
+                    posting.add(i);
+                }
+            }
+        }
+
+        for (Map.Entry<Long, Posting> entry : postings.entrySet()) {
+            Posting posting = entry.getValue();
+            trigrams.put(entry.getKey(), Arrays.copyOf(posting.ids, posting.size));
+        }
+    }
+
+    /**
+     * @param searchTerm the term which is in the libs name or definedName (NOT case sensitive)
+     * @param limit      -1 for all results, otherwise the search stops after the match following the first limit matches
+     * @return the matching libraries, in the order they were indexed in
+     */
+    public ArrayList<Library> find(String searchTerm, int limit) {
+        ArrayList<Library> result = new ArrayList<>();
+        String term = searchTerm.toLowerCase();
+        int[] candidates = candidates(term);
+        if (candidates == null) {
+            return result;
+        }
+
+        int size = candidates == ALL ? libraries.length : candidates.length;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int library = candidates == ALL ? i : candidates[i];
+            String[] libraryFields = fields[library];
+            if (libraryFields[FIELD_NAME].contains(term) || libraryFields[FIELD_DEFINED_NAME].contains(term)) {
+                result.add(libraries[library]);
+                count = count + 1;
+
+                if (limit != -1 && limit < count) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param searchTerm the term to search for (NOT case sensitive)
+     * @param limit      -1 for all results, otherwise the maximum number of results
+     * @return the matching libraries, the best match first
+     */
+    public ArrayList<Library> search(String searchTerm, int limit) {
+        ArrayList<Library> result = new ArrayList<>();
+        if (searchTerm == null || limit == 0) {
+            return result;
+        }
+        String term = searchTerm.toLowerCase();
+        int[] candidates = candidates(term);
+        if (candidates == null) {
+            return result;
+        }
+
+        //every match packed as (inverted score << 32 | index), so sorting them ranks them
+        long[] matches = new long[candidates == ALL ? libraries.length : candidates.length];
+        int count = 0;
+        for (int i = 0; i < matches.length; i++) {
+            int library = candidates == ALL ? i : candidates[i];
+            int score = score(library, term);
+            if (score > 0) {
+                matches[count++] = pack(score, library);
+            }
+        }
+
+        Arrays.sort(matches, 0, count);
+        int resultSize = limit < 0 ? count : Math.min(limit, count);
+        result.ensureCapacity(resultSize);
+        for (int i = 0; i < resultSize; i++) {
+            result.add(libraries[(int) matches[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * @return the sorted indices of the libraries which may contain the term, ALL if every library has to be checked
+     * or null if no library contains it
+     */
+    private int[] candidates(String term) {
+        if (term.length() < 3) {
+            return ALL;
+        }
+        int[] candidates = null;
+        for (int pos = 0; pos + 3 <= term.length(); pos++) {
+            int[] posting = trigrams.get(trigram(term, pos));
+            if (posting == null) {
+                //a trigram of the term is not contained in any library
+                return null;
+            }
+            if (candidates == null || posting.length < candidates.length) {
+                candidates = posting;
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * @return the score of the best matching field, or 0 if no field contains the term
+     */
+    private int score(int library, String term) {
+        int best = 0;
+        String[] libraryFields = fields[library];
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            int match = match(libraryFields[field], term);
+            if (match > 0) {
+                best = Math.max(best, match * FIELD_WEIGHT[field]);
+            }
+        }
+        return best;
+    }
+
+    private static int match(String field, String term) {
+        int index = field.indexOf(term);
+        if (index < 0) {
+            return 0;
+        } else if (index == 0) {
+            return field.length() == term.length() ? MATCH_EXACT : MATCH_PREFIX;
+        }
+        //check if the term starts a word somewhere in the field
+        while (index > 0) {
+            if (!Character.isLetterOrDigit(field.charAt(index - 1))) {
+                return MATCH_WORD_PREFIX;
+            }
+            index = field.indexOf(term, index + 1);
+        }
+        return MATCH_CONTAINS;
+    }
+
+    private static long pack(int score, int index) {
+        return ((long) (Integer.MAX_VALUE - score) << 32) | index;
+    }
+
+    private static Long trigram(String s, int pos) {
+        return ((long) s.charAt(pos) << 32) | ((long) s.charAt(pos + 1) << 16) | s.charAt(pos + 2);
+    }
+
+    private static String lowerCase(String s) {
+        return s == null ? "" : s.toLowerCase();
+    }
+
+    /**
+     * growable list of library indices, which are added in increasing order
+     */
+    private static class Posting {
+        private int[] ids = new int[4];
+        private int size = 0;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.mikepenz.aboutlibraries.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Helper to spread independent work over an Executor
+ */
+public class ParallelUtil {
+
+    public interface IndexedTask {
+        /**
+         * @param index the index of the element to process
+         */
+        void run(int index);
+    }
+
+    /**
+     * runs the task for every index from 0 to count (exclusive) and returns as soon as all of them are done.
+     * The calling thread takes part in the work, so this also finishes if the executor is busy or
+     * the caller itself runs on one of its threads.
+     *
+     * @param executor the executor to use, or null to run everything on the calling thread
+     * @param count    the number of elements
+     * @param task     the task to run for each element
+     */
+    public static void forEach(Executor executor, final int count, final IndexedTask task) {
+        if (executor == null || count < 2) {
+            for (int i = 0; i < count; i++) {
+                task.run(i);
+            }
+            return;
+        }
+
+        final AtomicInteger next = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(count);
+        Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int index;
+                while ((index = next.getAndIncrement()) < count) {
+                    try {
+                        task.run(index);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }
+        };
+
+        int workers = Math.min(count, Runtime.getRuntime().availableProcessors()) - 1;
+        for (int i = 0; i < workers; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException ex) {
+                //the calling thread will process the remaining elements
+                break;
+            }
+        }
+        worker.run();
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
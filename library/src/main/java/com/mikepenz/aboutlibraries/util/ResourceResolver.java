@@ -0,0 +1,88 @@
+package com.mikepenz.aboutlibraries.util;
+
+import android.content.Context;
+
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves string resources by their name and remembers their identifier, also if the resource does not exist.
+ * <p>
+ * Most definitions only define some of the optional strings (e.g. the authorWebsite or the classPath), so many
+ * lookups are misses which would otherwise cost a full getIdentifier() each time. Only the identifiers are kept,
+ * they don't depend on the locale, the strings are still read from the current resources. There is one resolver
+ * for each package, shared by all Libs instances.
+ */
+public class ResourceResolver {
+    private static final HashMap<String, ResourceResolver> RESOLVERS = new HashMap<>();
+    //the resolver used last, it is the one asked for almost every time
+    private static volatile ResourceResolver lastResolver;
+
+    private final String packageName;
+    //the identifier of each name, 0 if the resource does not exist
+    private final ConcurrentHashMap<String, Integer> identifiers = new ConcurrentHashMap<>();
+
+    private ResourceResolver(String packageName) {
+        this.packageName = packageName;
+    }
+
+    /**
+     * @param ctx the current context
+     * @return the resolver for the package of the context
+     */
+    public static ResourceResolver get(Context ctx) {
+        String packageName = ctx.getPackageName();
+        ResourceResolver resolver = lastResolver;
+        if (resolver != null && resolver.packageName.equals(packageName)) {
+            return resolver;
+        }
+
+        synchronized (RESOLVERS) {
+            resolver = RESOLVERS.get(packageName);
+            if (resolver == null) {
+                resolver = new ResourceResolver(packageName);
+                RESOLVERS.put(packageName, resolver);
+            }
+        }
+        lastResolver = resolver;
+        return resolver;
+    }
+
+    /**
+     * removes all resolved identifiers. This is called by the LibsCache if the system is running low on memory
+     */
+    public static void clear() {
+        synchronized (RESOLVERS) {
+            RESOLVERS.clear();
+            lastResolver = null;
+        }
+    }
+
+    /**
+     * @param ctx  the current context, its resources are used for names not resolved yet
+     * @param name the name of the string resource
+     * @return the identifier of the string or 0 if the resource does not exist
+     */
+    public int getIdentifier(Context ctx, String name) {
+        Integer resId = identifiers.get(name);
+        if (resId == null) {
+            resId = ctx.getResources().getIdentifier(name, "string", packageName);
+            identifiers.put(name, resId);
+        }
+        return resId;
+    }
+
+    /**
+     * @param ctx  the current context
+     * @param name the name of the string resource
+     * @return the string or an empty string if the resource does not exist
+     */
+    public String getString(Context ctx, String name) {
+        int resId = getIdentifier(ctx, name);
+        if (resId == 0) {
+            return "";
+        }
+        String value = ctx.getString(resId);
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,143 @@
+package com.mikepenz.aboutlibraries.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A text with &lt;&lt;&lt;KEY&gt;&gt;&gt; placeholders (e.g. a license text), tokenized once so it can be rendered
+ * with different variables in a single pass.
+ * <p>
+ * Rendering gives the same result as the previous replace based implementation: placeholders with a non empty
+ * variable are replaced by its value, all other placeholders are reduced to their key and any other
+ * &lt;&lt;&lt; or &gt;&gt;&gt; is removed. (Only texts in which removing a marker forms a new one, like
+ * "&gt;&lt;&lt;&lt;&gt;&gt;", may differ.)
+ */
+public class TextTemplate {
+    private static final String OPEN = "<<<";
+    private static final String CLOSE = ">>>";
+
+    private final String text;
+    //the literal parts, literals[i] is followed by the placeholder keys[i] (if i < keys.length)
+    private final String[] literals;
+    private final String[] keys;
+    private final int literalLength;
+
+    private TextTemplate(String text, String[] literals, String[] keys) {
+        this.text = text;
+        this.literals = literals;
+        this.keys = keys;
+        int length = 0;
+        for (String literal : literals) {
+            length = length + literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * tokenizes the text
+     *
+     * @param text the text containing the placeholders
+     * @return the template
+     */
+    public static TextTemplate compile(String text) {
+        ArrayList<String> literals = new ArrayList<>();
+        ArrayList<String> keys = new ArrayList<>();
+
+        StringBuilder literal = new StringBuilder();
+        int pos = 0;
+        while (pos < text.length()) {
+            int open = text.indexOf(OPEN, pos);
+            int close = text.indexOf(CLOSE, pos);
+            if (open < 0 && close < 0) {
+                literal.append(text, pos, text.length());
+                break;
+            }
+
+            if (open >= 0 && (close < 0 || open < close)) {
+                literal.append(text, pos, open);
+                //in a longer run of '<' the placeholder starts with the last three of them
+                int keyStart = open + OPEN.length();
+                while (keyStart < text.length() && text.charAt(keyStart) == '<') {
+                    keyStart++;
+                }
+                int keyEnd = text.indexOf(CLOSE, keyStart);
+                if (keyEnd >= 0 && isKey(text, keyStart, keyEnd)) {
+                    //the '<' in front of the placeholder are removed as markers, the remainder is kept
+                    for (int i = 0; i < (keyStart - OPEN.length() - open) % OPEN.length(); i++) {
+                        literal.append('<');
+                    }
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    keys.add(text.substring(keyStart, keyEnd));
+                    pos = keyEnd + CLOSE.length();
+                } else {
+                    //a single marker, it is removed
+                    pos = open + OPEN.length();
+                }
+            } else {
+                literal.append(text, pos, close);
+                pos = close + CLOSE.length();
+            }
+        }
+        literals.add(literal.toString());
+
+        return new TextTemplate(text, literals.toArray(new String[literals.size()]), keys.toArray(new String[keys.size()]));
+    }
+
+    private static boolean isKey(String text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '<' || c == '>') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the original text of this template
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @param variables the variables to insert, the keys are matched upper case
+     * @return the rendered text
+     */
+    public String render(Map<String, String> variables) {
+        if (keys.length == 0) {
+            //nothing to insert, reuse the literal if the text had no markers at all
+            return literals[0].length() == text.length() ? text : literals[0];
+        }
+
+        Map<String, String> upperCaseVariables;
+        if (variables == null || variables.isEmpty()) {
+            upperCaseVariables = null;
+        } else {
+            upperCaseVariables = new HashMap<>(variables.size() * 2);
+            for (Map.Entry<String, String> entry : variables.entrySet()) {
+                if (entry.getValue() != null && entry.getValue().length() > 0) {
+                    upperCaseVariables.put(entry.getKey().toUpperCase(), entry.getValue());
+                }
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(literalLength + keys.length * 16);
+        for (int i = 0; i < keys.length; i++) {
+            sb.append(literals[i]);
+            String value = upperCaseVariables != null ? upperCaseVariables.get(keys[i]) : null;
+            if (value == null) {
+                sb.append(keys[i]);
+            } else if (value.indexOf('<') >= 0 || value.indexOf('>') >= 0) {
+                //markers within the inserted values were removed as well
+                sb.append(value.replace(OPEN, "").replace(CLOSE, ""));
+            } else {
+                sb.append(value);
+            }
+        }
+        sb.append(literals[keys.length]);
+        return sb.toString();
+    }
+}
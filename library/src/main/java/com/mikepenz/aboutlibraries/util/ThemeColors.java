@@ -0,0 +1,54 @@
+package com.mikepenz.aboutlibraries.util;
+
+import android.content.Context;
+import android.support.v4.content.ContextCompat;
+import android.util.TypedValue;
+
+import com.mikepenz.aboutlibraries.R;
+
+/**
+ * The colors of the items in the list, resolved from the theme (or the default color resources) once for the whole
+ * list instead of for each created ViewHolder.
+ */
+public class ThemeColors {
+    public final int card;
+    public final int titleOpenSource;
+    public final int textOpenSource;
+    public final int dividerLightOpenSource;
+    public final int titleDescription;
+    public final int textDescription;
+    public final int dividerDescription;
+
+    private ThemeColors(Context ctx) {
+        TypedValue tv = new TypedValue();
+        card = resolve(ctx, tv, R.attr.about_libraries_card, R.color.about_libraries_card);
+        titleOpenSource = resolve(ctx, tv, R.attr.about_libraries_title_openSource, R.color.about_libraries_title_openSource);
+        textOpenSource = resolve(ctx, tv, R.attr.about_libraries_text_openSource, R.color.about_libraries_text_openSource);
+        dividerLightOpenSource = resolve(ctx, tv, R.attr.about_libraries_dividerLight_openSource, R.color.about_libraries_dividerLight_openSource);
+        titleDescription = resolve(ctx, tv, R.attr.about_libraries_title_description, R.color.about_libraries_title_description);
+        textDescription = resolve(ctx, tv, R.attr.about_libraries_text_description, R.color.about_libraries_text_description);
+        dividerDescription = resolve(ctx, tv, R.attr.about_libraries_divider_description, R.color.about_libraries_divider_description);
+    }
+
+    /**
+     * @param ctx the (themed) context of the list
+     * @return the colors defined by its theme
+     */
+    public static ThemeColors resolve(Context ctx) {
+        return new ThemeColors(ctx);
+    }
+
+    /**
+     * same as UIUtils.getThemeColorFromAttrOrRes, but reuses the TypedValue
+     */
+    private static int resolve(Context ctx, TypedValue tv, int attr, int res) {
+        int color = 0;
+        if (ctx.getTheme().resolveAttribute(attr, tv, true)) {
+            color = tv.data;
+        }
+        if (color == 0) {
+            color = ContextCompat.getColor(ctx, res);
+        }
+        return color;
+    }
+}
@@ -36,4 +36,14 @@ public class Util {
         }
         return appInfo;
     }
+
+    /**
+     * @param ctx     the current context
+     * @param aString the name of the string resource
+     * @return the string or an empty string if the resource does not exist
+     */
+    public static String getStringResourceByName(Context ctx, String aString) {
+        //the identifiers are resolved only once, the missing ones too
+        return ResourceResolver.get(ctx).getString(ctx, aString);
+    }
 }
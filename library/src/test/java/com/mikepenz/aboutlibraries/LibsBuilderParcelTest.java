@@ -0,0 +1,215 @@
+package com.mikepenz.aboutlibraries;
+
+import android.os.Parcel;
+
+import com.mikepenz.aboutlibraries.entity.Library;
+import com.mikepenz.aboutlibraries.util.Colors;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class LibsBuilderParcelTest {
+    private static final int ROUNDS = 2000;
+
+    @Test
+    public void parcelRoundTrip() {
+        LibsBuilder builder = createBuilder();
+        LibsBuilder copy = parcel(builder);
+
+        assertArrayEquals(builder.fields, copy.fields);
+        assertArrayEquals(builder.internalLibraries, copy.internalLibraries);
+        assertArrayEquals(builder.excludeLibraries, copy.excludeLibraries);
+        assertEquals(builder.autoDetect, copy.autoDetect);
+        assertEquals(builder.sort, copy.sort);
+        assertEquals(builder.showLicense, copy.showLicense);
+        assertEquals(builder.showLoadingProgress, copy.showLoadingProgress);
+        assertEquals(builder.aboutShowIcon, copy.aboutShowIcon);
+        assertEquals(builder.aboutAppName, copy.aboutAppName);
+        assertEquals(builder.aboutShowVersionCode, copy.aboutShowVersionCode);
+        assertEquals(builder.aboutAppSpecial2Description, copy.aboutAppSpecial2Description);
+        assertEquals(builder.activityTheme, copy.activityTheme);
+        assertEquals(builder.activityTitle, copy.activityTitle);
+        assertEquals(builder.activityStyle, copy.activityStyle);
+        assertEquals(builder.libTaskExecutor, copy.libTaskExecutor);
+        assertEquals(builder.ownLibsActivityClass, copy.ownLibsActivityClass);
+        assertEquals(builder.prefetchId, copy.prefetchId);
+
+        assertEquals(builder.activityColor.appBarColor, copy.activityColor.appBarColor);
+        assertEquals(builder.activityColor.statusBarColor, copy.activityColor.statusBarColor);
+
+        assertEquals(builder.libraryModification, copy.libraryModification);
+    }
+
+    @Test
+    public void parcelRoundTripWithDefaults() {
+        LibsBuilder builder = new LibsBuilder();
+        LibsBuilder copy = parcel(builder);
+
+        assertNull(copy.fields);
+        assertNull(copy.libraryComparator);
+        assertNull(copy.activityColor);
+        assertNull(copy.libraryModification);
+        assertNull(copy.aboutShowIcon);
+        assertEquals(builder.activityTheme, copy.activityTheme);
+        assertEquals(builder.ownLibsActivityClass, copy.ownLibsActivityClass);
+    }
+
+    @Test
+    public void serializableComparatorFallback() {
+        LibsBuilder copy = parcel(createBuilder());
+
+        assertTrue(copy.libraryComparator instanceof ReverseNameComparator);
+        Library a = new Library("author", "a", "");
+        Library b = new Library("author", "b", "");
+        assertTrue(copy.libraryComparator.compare(a, b) > 0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void comparatorHasToBeSerializable() {
+        parcel(new LibsBuilder().withLibraryComparator(new Comparator<Library>() {
+            @Override
+            public int compare(Library lhs, Library rhs) {
+                return 0;
+            }
+        }));
+    }
+
+    @Test
+    public void loaderExecutorIsNotParcelled() {
+        LibsBuilder builder = createBuilder().withLoaderExecutor(new Executor() {
+            @Override
+            public void execute(Runnable runnable) {
+                runnable.run();
+            }
+        });
+
+        assertNull(parcel(builder).loaderExecutor);
+        assertNull(builder.copy().loaderExecutor);
+    }
+
+    @Test
+    public void marshallIsEqualForEqualBuilders() {
+        LibsBuilder builder = createBuilder();
+        LibsBuilder copy = parcel(builder);
+        assertArrayEquals(builder.marshall(), copy.marshall());
+
+        copy.withAboutAppName("changed");
+        assertFalse(Arrays.equals(builder.marshall(), copy.marshall()));
+    }
+
+    /**
+     * compares the round trip of the Parcelable builder with the Java serialization it replaced. Robolectric
+     * implements the Parcel in Java, so the absolute numbers only give an idea of the difference on a device
+     */
+    @Test
+    public void parcelVsSerializableTiming() throws Exception {
+        LibsBuilder builder = createBuilder();
+
+        //warm up both paths
+        for (int i = 0; i < ROUNDS / 10; i++) {
+            parcel(builder);
+            serialize(builder);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            parcel(builder);
+        }
+        long parcelTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            serialize(builder);
+        }
+        long serializableTime = System.nanoTime() - start;
+
+        System.out.println("LibsBuilder round trip: Parcelable " + parcelTime / ROUNDS + " ns, Serializable " + serializableTime / ROUNDS + " ns");
+        assertEquals(builder.libraryModification, serialize(builder).libraryModification);
+    }
+
+    private static LibsBuilder createBuilder() {
+        LibsBuilder builder = new LibsBuilder()
+                .withFields("define_fastadapter", "define_okhttp")
+                .withLibraries("fastadapter", "okhttp")
+                .withExcludedLibraries("okio")
+                .withAutoDetect(false)
+                .withLibraryComparator(new ReverseNameComparator())
+                .withLicenseShown(true)
+                .withShowLoadingProgress(false)
+                .withAboutIconShown(true)
+                .withAboutAppName("AboutLibraries")
+                .withAboutVersionShownCode(true)
+                .withAboutSpecial2Description("special")
+                .withActivityTheme(42)
+                .withActivityTitle("Open Source")
+                .withActivityColor(new Colors(0xFF3F51B5, 0xFF303F9F))
+                .withActivityStyle(Libs.ActivityStyle.LIGHT_DARK_TOOLBAR)
+                .withLibTaskExecutor(LibTaskExecutor.THREAD_POOL_EXECUTOR)
+                .withLibraryModification("fastadapter", Libs.LibraryFields.LIBRARY_NAME, "FastAdapter")
+                .withLibraryModification("fastadapter", Libs.LibraryFields.AUTHOR_NAME, "Mike Penz")
+                .withLibraryModification("okhttp", Libs.LibraryFields.LIBRARY_VERSION, "3.10.0");
+        builder.prefetchId = "prefetch";
+        return builder;
+    }
+
+    private static LibsBuilder parcel(LibsBuilder builder) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            builder.writeToParcel(parcel, 0);
+            byte[] bytes = parcel.marshall();
+
+            Parcel restored = Parcel.obtain();
+            try {
+                restored.unmarshall(bytes, 0, bytes.length);
+                restored.setDataPosition(0);
+                return LibsBuilder.CREATOR.createFromParcel(restored);
+            } finally {
+                restored.recycle();
+            }
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static LibsBuilder serialize(LibsBuilder builder) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(builder);
+        out.close();
+
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        try {
+            return (LibsBuilder) in.readObject();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * a comparator which is only Serializable, so it is parcelled through the Serializable fallback
+     */
+    private static class ReverseNameComparator implements Comparator<Library>, Serializable {
+        @Override
+        public int compare(Library lhs, Library rhs) {
+            return rhs.getLibraryName().compareTo(lhs.getLibraryName());
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.mikepenz.aboutlibraries;
+
+import android.content.Context;
+
+import com.mikepenz.aboutlibraries.entity.Library;
+import com.mikepenz.aboutlibraries.entity.License;
+import com.mikepenz.aboutlibraries.entity.LicenseDefinition;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+public class LibsSnapshotTest {
+    private static final long KEY = 42;
+    //magic, format version, versionCode, lastUpdateTime and key
+    private static final int HEADER_SIZE = 28;
+
+    private Context ctx;
+
+    @Before
+    public void setUp() {
+        ctx = RuntimeEnvironment.application;
+        LibsSnapshot.clear(ctx);
+    }
+
+    @Test
+    public void roundTrip() {
+        List<Library> libraries = createLibraries();
+        LibsSnapshot.write(ctx, KEY, libraries);
+
+        ArrayList<Library> read = LibsSnapshot.read(ctx, KEY);
+        assertNotNull(read);
+        assertEquals(libraries.size(), read.size());
+        for (int i = 0; i < libraries.size(); i++) {
+            assertLibraryEquals(libraries.get(i), read.get(i));
+        }
+
+        //the libraries sharing a definition share it again
+        assertNotNull(read.get(0).getLicense().getDefinition());
+        assertSame(read.get(0).getLicense().getDefinition(), read.get(1).getLicense().getDefinition());
+    }
+
+    @Test
+    public void otherKeyIsIgnored() {
+        LibsSnapshot.write(ctx, KEY, createLibraries());
+
+        assertNull(LibsSnapshot.read(ctx, KEY + 1));
+        assertNotNull(LibsSnapshot.read(ctx, KEY));
+    }
+
+    @Test
+    public void missingSnapshotIsIgnored() {
+        assertNull(LibsSnapshot.read(ctx, KEY));
+
+        LibsSnapshot.write(ctx, KEY, createLibraries());
+        LibsSnapshot.clear(ctx);
+        assertNull(LibsSnapshot.read(ctx, KEY));
+    }
+
+    @Test
+    public void truncatedSnapshotIsIgnored() throws IOException {
+        LibsSnapshot.write(ctx, KEY, createLibraries());
+        byte[] data = readFile(LibsSnapshot.getFile(ctx));
+
+        for (int length = 0; length < data.length; length++) {
+            writeFile(LibsSnapshot.getFile(ctx), Arrays.copyOf(data, length));
+            assertNull("read " + length + " of " + data.length + " bytes", LibsSnapshot.read(ctx, KEY));
+        }
+    }
+
+    @Test
+    public void corruptCountsAreIgnored() throws IOException {
+        LibsSnapshot.write(ctx, KEY, createLibraries());
+        byte[] data = readFile(LibsSnapshot.getFile(ctx));
+
+        for (int count : new int[]{-2, Integer.MAX_VALUE}) {
+            byte[] corrupt = data.clone();
+            //the number of license definitions follows the header
+            putInt(corrupt, HEADER_SIZE, count);
+            writeFile(LibsSnapshot.getFile(ctx), corrupt);
+            assertNull(LibsSnapshot.read(ctx, KEY));
+        }
+
+        //the length of the first string of the first definition
+        byte[] corrupt = data.clone();
+        putInt(corrupt, HEADER_SIZE + 4, Integer.MAX_VALUE);
+        writeFile(LibsSnapshot.getFile(ctx), corrupt);
+        assertNull(LibsSnapshot.read(ctx, KEY));
+    }
+
+    @Test
+    public void garbageIsIgnored() throws IOException {
+        LibsSnapshot.write(ctx, KEY, createLibraries());
+        byte[] data = readFile(LibsSnapshot.getFile(ctx));
+
+        Random random = new Random(3);
+        for (int i = 0; i < 200; i++) {
+            byte[] corrupt = data.clone();
+            //keep the header, so the corrupt content is actually read
+            for (int j = 0; j < 8; j++) {
+                corrupt[HEADER_SIZE + random.nextInt(corrupt.length - HEADER_SIZE)] = (byte) random.nextInt();
+            }
+            writeFile(LibsSnapshot.getFile(ctx), corrupt);
+            //a corrupt snapshot may still be readable, but it must never throw
+            LibsSnapshot.read(ctx, KEY);
+        }
+    }
+
+    private static List<Library> createLibraries() {
+        LicenseDefinition mit = new LicenseDefinition("mit", "MIT License", "http://opensource.org/licenses/MIT",
+                "Copyright <<<YEAR>>> <<<OWNER>>>", "Permission is hereby granted, <<<OWNER>>>");
+
+        HashMap<String, String> variables = new HashMap<>();
+        variables.put("year", "2018");
+        variables.put("owner", "Mike Penz");
+
+        ArrayList<Library> libraries = new ArrayList<>();
+
+        Library fastAdapter = library("fastadapter", "FastAdapter", true);
+        fastAdapter.setLicense(new License(mit, variables));
+        libraries.add(fastAdapter);
+
+        Library materialDrawer = library("materialdrawer", "MaterialDrawer", false);
+        License changed = new License(mit, null);
+        changed.setLicenseName("MIT");
+        changed.setLicenseDescription("its own text");
+        materialDrawer.setLicense(changed);
+        libraries.add(materialDrawer);
+
+        Library okhttp = library("okhttp", "OkHttp", false);
+        License standalone = new License("Apache Version 2.0", "http://www.apache.org/licenses/LICENSE-2.0", "short", "full");
+        standalone.setDefinedName("apache_2_0");
+        okhttp.setLicense(standalone);
+        libraries.add(okhttp);
+
+        Library noLicense = library("nolicense", "\u00dcnlicensed \u2713", false);
+        noLicense.setAuthor(null);
+        libraries.add(noLicense);
+        return libraries;
+    }
+
+    private static Library library(String definedName, String name, boolean internal) {
+        Library library = new Library("Mike Penz", name, "The " + name + " library", "1.0.0");
+        library.setDefinedName(definedName);
+        library.setInternal(internal);
+        library.setAuthorWebsite("http://mikepenz.com");
+        library.setLibraryWebsite("https://github.com/mikepenz/" + name);
+        library.setRepositoryLink("https://github.com/mikepenz/" + name);
+        library.setClassPath("com.mikepenz." + definedName);
+        library.setOpenSource(!internal);
+        return library;
+    }
+
+    private static void assertLibraryEquals(Library expected, Library actual) {
+        assertEquals(expected.getDefinedName(), actual.getDefinedName());
+        assertEquals(expected.isInternal(), actual.isInternal());
+        assertEquals(expected.getAuthor(), actual.getAuthor());
+        assertEquals(expected.getAuthorWebsite(), actual.getAuthorWebsite());
+        assertEquals(expected.getLibraryName(), actual.getLibraryName());
+        assertEquals(expected.getLibraryDescription(), actual.getLibraryDescription());
+        assertEquals(expected.getLibraryVersion(), actual.getLibraryVersion());
+        assertEquals(expected.getLibraryWebsite(), actual.getLibraryWebsite());
+        assertEquals(expected.isOpenSource(), actual.isOpenSource());
+        assertEquals(expected.getRepositoryLink(), actual.getRepositoryLink());
+        assertEquals(expected.getClassPath(), actual.getClassPath());
+
+        License expectedLicense = expected.getLicense();
+        License actualLicense = actual.getLicense();
+        if (expectedLicense == null) {
+            assertNull(actualLicense);
+            return;
+        }
+        assertNotNull(actualLicense);
+        assertEquals(expectedLicense.getDefinedName(), actualLicense.getDefinedName());
+        assertEquals(expectedLicense.getLicenseName(), actualLicense.getLicenseName());
+        assertEquals(expectedLicense.getLicenseWebsite(), actualLicense.getLicenseWebsite());
+        assertEquals(expectedLicense.getLicenseShortDescription(), actualLicense.getLicenseShortDescription());
+        assertEquals(expectedLicense.getLicenseDescription(), actualLicense.getLicenseDescription());
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        byte[] data = new byte[(int) file.length()];
+        FileInputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            while (offset < data.length) {
+                offset += in.read(data, offset, data.length - offset);
+            }
+        } finally {
+            in.close();
+        }
+        return data;
+    }
+
+    private static void writeFile(File file, byte[] data) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void putInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+}
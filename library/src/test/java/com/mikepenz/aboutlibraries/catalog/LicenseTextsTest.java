@@ -0,0 +1,224 @@
+package com.mikepenz.aboutlibraries.catalog;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+public class LicenseTextsTest {
+    private static final int INDEX_OFFSET = 12;
+
+    @Test
+    public void roundTrip() throws IOException {
+        TreeMap<String, String> texts = texts();
+        byte[] data = write(texts);
+
+        HashMap<String, int[]> index = LicenseTexts.readIndex(input(data));
+        assertEquals(texts.size(), index.size());
+        for (Map.Entry<String, String> text : texts.entrySet()) {
+            int[] entry = index.get(text.getKey());
+            assertNotNull(text.getKey(), entry);
+            assertEquals(text.getValue(), LicenseTexts.readText(new ByteArrayInputStream(data), entry));
+        }
+    }
+
+    @Test
+    public void truncatedIndexFails() throws IOException {
+        byte[] data = write(texts());
+        int indexEnd = indexEnd(data);
+
+        for (int length = 0; length < indexEnd; length++) {
+            try {
+                LicenseTexts.readIndex(input(Arrays.copyOf(data, length)));
+                fail("read the index out of " + length + " bytes");
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void truncatedTextFails() throws IOException {
+        byte[] data = write(texts());
+        HashMap<String, int[]> index = LicenseTexts.readIndex(input(data));
+
+        for (Map.Entry<String, int[]> entry : index.entrySet()) {
+            int[] position = entry.getValue();
+            if (position[2] == 0) {
+                //nothing is read for an empty text
+                continue;
+            }
+            //cut the file in the middle of the compressed text
+            byte[] truncated = Arrays.copyOf(data, position[0] + position[1] / 2);
+            try {
+                LicenseTexts.readText(new ByteArrayInputStream(truncated), position);
+                fail("read the truncated text " + entry.getKey());
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void unsupportedFormatFails() throws IOException {
+        byte[] data = write(texts());
+
+        byte[] magic = data.clone();
+        magic[0] = 0;
+        byte[] version = data.clone();
+        version[7] = 2;
+        for (byte[] corrupt : Arrays.asList(magic, version)) {
+            try {
+                LicenseTexts.readIndex(input(corrupt));
+                fail();
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void corruptCountFails() throws IOException {
+        byte[] data = write(texts());
+
+        for (int count : new int[]{-1, Integer.MAX_VALUE}) {
+            byte[] corrupt = data.clone();
+            putInt(corrupt, 8, count);
+            try {
+                LicenseTexts.readIndex(input(corrupt));
+                fail("read the count " + count);
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void corruptLengthFails() throws IOException {
+        byte[] data = write(texts());
+        //the length of the first text is the last int of the first entry
+        int nameLength = ((data[INDEX_OFFSET] & 0xFF) << 8) | (data[INDEX_OFFSET + 1] & 0xFF);
+        int lengthOffset = INDEX_OFFSET + 2 + nameLength + 8;
+
+        for (int length : new int[]{-1, Integer.MAX_VALUE}) {
+            byte[] corrupt = data.clone();
+            putInt(corrupt, lengthOffset, length);
+            try {
+                LicenseTexts.readIndex(input(corrupt));
+                fail("read the length " + length);
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void corruptTextFails() throws IOException {
+        byte[] data = write(texts());
+        HashMap<String, int[]> index = LicenseTexts.readIndex(input(data));
+
+        for (int[] entry : index.values()) {
+            if (entry[2] == 0) {
+                continue;
+            }
+            byte[] corrupt = data.clone();
+            //breaks the zlib header of the text
+            corrupt[entry[0]] = 0;
+            try {
+                LicenseTexts.readText(new ByteArrayInputStream(corrupt), entry);
+                fail();
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    private static TreeMap<String, String> texts() {
+        TreeMap<String, String> texts = new TreeMap<>();
+        texts.put("mit", "Permission is hereby granted, free of charge, to any person obtaining a copy of this software, <<<YEAR>>> <<<OWNER>>>");
+        texts.put("apache_2_0", repeat("Licensed under the Apache License, Version 2.0 (the \"License\"); ", 200));
+        texts.put("unicode", "\u00dcn\u00efc\u00f6d\u00e9 \u2713 \ud83d\ude00");
+        texts.put("empty", "");
+        return texts;
+    }
+
+    /**
+     * writes the texts like the generateAboutLibrariesLicenseTexts task (gradle-catalog.gradle)
+     */
+    private static byte[] write(TreeMap<String, String> texts) throws IOException {
+        List<byte[]> names = new ArrayList<>();
+        List<byte[]> compressed = new ArrayList<>();
+        List<Integer> lengths = new ArrayList<>();
+        for (Map.Entry<String, String> text : texts.entrySet()) {
+            byte[] bytes = text.getValue().getBytes("UTF-8");
+            ByteArrayOutputStream compressedBytes = new ByteArrayOutputStream();
+            DeflaterOutputStream deflater = new DeflaterOutputStream(compressedBytes, new Deflater(Deflater.BEST_COMPRESSION));
+            deflater.write(bytes);
+            deflater.close();
+
+            names.add(text.getKey().getBytes("UTF-8"));
+            compressed.add(compressedBytes.toByteArray());
+            lengths.add(bytes.length);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0x41424C54);
+        out.writeInt(1);
+        out.writeInt(names.size());
+
+        int offset = INDEX_OFFSET;
+        for (byte[] name : names) {
+            offset += 2 + name.length + 12;
+        }
+        for (int i = 0; i < names.size(); i++) {
+            out.writeShort(names.get(i).length);
+            out.write(names.get(i));
+            out.writeInt(offset);
+            out.writeInt(compressed.get(i).length);
+            out.writeInt(lengths.get(i));
+            offset += compressed.get(i).length;
+        }
+        for (byte[] text : compressed) {
+            out.write(text);
+        }
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static int indexEnd(byte[] data) throws IOException {
+        int end = data.length;
+        for (int[] entry : LicenseTexts.readIndex(input(data)).values()) {
+            end = Math.min(end, entry[0]);
+        }
+        return end;
+    }
+
+    private static void putInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+
+    private static String repeat(String s, int count) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    private static DataInputStream input(byte[] data) {
+        return new DataInputStream(new ByteArrayInputStream(data));
+    }
+}
@@ -0,0 +1,154 @@
+package com.mikepenz.aboutlibraries.detector;
+
+import android.content.Context;
+
+import com.mikepenz.aboutlibraries.entity.Library;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricTestRunner.class)
+public class DetectionCacheTest {
+    private Context ctx;
+
+    @Before
+    public void setUp() {
+        ctx = RuntimeEnvironment.application;
+        DetectionCache.clear(ctx);
+    }
+
+    @Test
+    public void roundTrip() {
+        List<Library> libraries = createLibraries(21);
+        List<Library> detected = new ArrayList<>();
+        for (int i = 0; i < libraries.size(); i += 3) {
+            detected.add(libraries.get(i));
+        }
+        DetectionCache.write(ctx, libraries, detected);
+
+        List<Library> read = DetectionCache.read(ctx, libraries);
+        assertNotNull(read);
+        assertEquals(detected.size(), read.size());
+        for (int i = 0; i < detected.size(); i++) {
+            assertSame(detected.get(i), read.get(i));
+        }
+    }
+
+    @Test
+    public void nothingDetected() {
+        List<Library> libraries = createLibraries(8);
+        DetectionCache.write(ctx, libraries, Collections.<Library>emptyList());
+
+        List<Library> read = DetectionCache.read(ctx, libraries);
+        assertNotNull(read);
+        assertEquals(0, read.size());
+    }
+
+    @Test
+    public void otherLibrariesAreIgnored() {
+        List<Library> libraries = createLibraries(10);
+        DetectionCache.write(ctx, libraries, libraries.subList(0, 2));
+
+        //a library more, a library less and a changed classPath
+        assertNull(DetectionCache.read(ctx, createLibraries(11)));
+        assertNull(DetectionCache.read(ctx, createLibraries(9)));
+        List<Library> changed = createLibraries(10);
+        changed.get(4).setClassPath("com.example.changed");
+        assertNull(DetectionCache.read(ctx, changed));
+
+        //equal definitions are enough
+        assertNotNull(DetectionCache.read(ctx, createLibraries(10)));
+    }
+
+    @Test
+    public void missingCacheIsIgnored() {
+        List<Library> libraries = createLibraries(10);
+        assertNull(DetectionCache.read(ctx, libraries));
+
+        DetectionCache.write(ctx, libraries, libraries);
+        DetectionCache.clear(ctx);
+        assertNull(DetectionCache.read(ctx, libraries));
+    }
+
+    @Test
+    public void truncatedCacheIsIgnored() throws IOException {
+        List<Library> libraries = createLibraries(30);
+        DetectionCache.write(ctx, libraries, libraries.subList(5, 20));
+        byte[] data = readFile(DetectionCache.getFile(ctx));
+
+        for (int length = 0; length < data.length; length++) {
+            writeFile(DetectionCache.getFile(ctx), Arrays.copyOf(data, length));
+            assertNull("read " + length + " of " + data.length + " bytes", DetectionCache.read(ctx, libraries));
+        }
+
+        //a longer file is not ours either
+        writeFile(DetectionCache.getFile(ctx), Arrays.copyOf(data, data.length + 1));
+        assertNull(DetectionCache.read(ctx, libraries));
+    }
+
+    @Test
+    public void corruptHeaderIsIgnored() throws IOException {
+        List<Library> libraries = createLibraries(30);
+        DetectionCache.write(ctx, libraries, libraries.subList(5, 20));
+        byte[] data = readFile(DetectionCache.getFile(ctx));
+
+        //magic, format version, versionCode, hash and count
+        for (int offset = 0; offset < 24; offset++) {
+            byte[] corrupt = data.clone();
+            corrupt[offset] = (byte) ~corrupt[offset];
+            writeFile(DetectionCache.getFile(ctx), corrupt);
+            assertNull("corrupt byte " + offset, DetectionCache.read(ctx, libraries));
+        }
+    }
+
+    private static List<Library> createLibraries(int count) {
+        ArrayList<Library> libraries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Library library = new Library("Mike Penz", "Library " + i, "");
+            library.setDefinedName("library_" + i);
+            library.setClassPath("com.example.library" + i);
+            libraries.add(library);
+        }
+        return libraries;
+    }
+
+    private static byte[] readFile(File file) throws IOException {
+        byte[] data = new byte[(int) file.length()];
+        FileInputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            while (offset < data.length) {
+                offset += in.read(data, offset, data.length - offset);
+            }
+        } finally {
+            in.close();
+        }
+        return data;
+    }
+
+    private static void writeFile(File file, byte[] data) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.mikepenz.aboutlibraries.util;
+
+import com.mikepenz.aboutlibraries.entity.Library;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class CaseInsensitiveIndexTest {
+    @Test
+    public void getMatchesTheLinearSearch() {
+        List<Library> libraries = TestLibraries.create(400);
+        CaseInsensitiveIndex<Library> index = new CaseInsensitiveIndex<>(2 * libraries.size());
+        for (Library library : libraries) {
+            index.putIfAbsent(library.getLibraryName(), library);
+            index.putIfAbsent(library.getDefinedName(), library);
+        }
+
+        for (Library library : libraries) {
+            for (String name : new String[]{library.getLibraryName(), library.getDefinedName()}) {
+                for (String key : new String[]{name, name.toUpperCase(), name.toLowerCase()}) {
+                    assertSame(key, linearGet(libraries, key), index.get(key));
+                }
+            }
+        }
+        assertNull(index.get("library that does not exist"));
+        assertNull(index.get(""));
+        assertNull(index.get(null));
+    }
+
+    @Test
+    public void firstValueWins() {
+        CaseInsensitiveIndex<String> index = new CaseInsensitiveIndex<>(4);
+        index.putIfAbsent("FastAdapter", "first");
+        index.putIfAbsent("fastadapter", "second");
+        index.putIfAbsent(null, "null");
+
+        assertSame("first", index.get("FASTADAPTER"));
+        assertNull(index.get("fastadapte"));
+    }
+
+    @Test
+    public void fullCapacity() {
+        CaseInsensitiveIndex<Integer> index = new CaseInsensitiveIndex<>(1000);
+        for (int i = 0; i < 1000; i++) {
+            index.putIfAbsent("Key" + i, i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Integer.valueOf(i), index.get("kEY" + i));
+        }
+        assertNull(index.get("key1000"));
+    }
+
+    /**
+     * the linear search the index replaced (Libs.getLibrary())
+     */
+    private static Library linearGet(List<Library> libraries, String libraryName) {
+        for (Library library : libraries) {
+            if (library.getLibraryName().toLowerCase().equals(libraryName.toLowerCase())) {
+                return library;
+            } else if (library.getDefinedName().toLowerCase().equals(libraryName.toLowerCase())) {
+                return library;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,143 @@
+package com.mikepenz.aboutlibraries.util;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class DataStreamsTest {
+    @Test
+    public void stringRoundTrip() throws IOException {
+        StringBuilder longText = new StringBuilder();
+        while (longText.length() < 100 * 1024) {
+            longText.append("Permission is hereby granted, free of charge, to any person obtaining a copy. ");
+        }
+        String[] values = {null, "", "mit", "\u00dcn\u00efc\u00f6d\u00e9 \u2713 \ud83d\ude00", longText.toString()};
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (String value : values) {
+            DataStreams.writeString(out, value);
+        }
+        out.close();
+
+        DataInputStream in = input(bytes.toByteArray());
+        for (String value : values) {
+            assertEquals(value, DataStreams.readString(in));
+        }
+        assertEquals(0, in.available());
+    }
+
+    @Test
+    public void mapRoundTrip() throws IOException {
+        HashMap<String, String> map = new HashMap<>();
+        map.put("YEAR", "2018");
+        map.put("OWNER", "Mike Penz");
+        map.put("EMPTY", "");
+        map.put("NULL", null);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        DataStreams.writeMap(out, map);
+        DataStreams.writeMap(out, null);
+        DataStreams.writeMap(out, new HashMap<String, String>());
+        out.close();
+
+        DataInputStream in = input(bytes.toByteArray());
+        assertEquals(map, DataStreams.readMap(in));
+        assertNull(DataStreams.readMap(in));
+        assertEquals(new HashMap<String, String>(), DataStreams.readMap(in));
+    }
+
+    @Test
+    public void truncatedInputFails() throws IOException {
+        HashMap<String, String> map = new HashMap<>();
+        map.put("YEAR", "2018");
+        map.put("OWNER", "Mike Penz");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        DataStreams.writeString(out, "The MIT License");
+        DataStreams.writeMap(out, map);
+        out.close();
+        byte[] data = bytes.toByteArray();
+
+        for (int length = 0; length < data.length; length++) {
+            DataInputStream in = input(Arrays.copyOf(data, length));
+            try {
+                DataStreams.readString(in);
+                DataStreams.readMap(in);
+                fail("read " + length + " of " + data.length + " bytes");
+            } catch (IOException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void corruptLengthFails() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(Integer.MAX_VALUE);
+        out.writeBytes("short");
+        out.close();
+
+        try {
+            DataStreams.readString(input(bytes.toByteArray()));
+            fail();
+        } catch (IOException expected) {
+        }
+        try {
+            DataStreams.readMap(input(bytes.toByteArray()));
+            fail();
+        } catch (IOException expected) {
+        }
+        try {
+            DataStreams.readCount(input(bytes.toByteArray()), 1);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void negativeCountFails() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(-5);
+        out.close();
+
+        try {
+            DataStreams.readCount(input(bytes.toByteArray()), 4);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void countIsCheckedAgainstTheRemainingBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(3);
+        out.write(new byte[12]);
+        out.close();
+
+        assertEquals(3, DataStreams.readCount(input(bytes.toByteArray()), 4));
+        try {
+            DataStreams.readCount(input(bytes.toByteArray()), 5);
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    private static DataInputStream input(byte[] data) {
+        return new DataInputStream(new ByteArrayInputStream(data));
+    }
+}
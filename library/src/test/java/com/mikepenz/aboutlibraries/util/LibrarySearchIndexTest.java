@@ -0,0 +1,148 @@
+package com.mikepenz.aboutlibraries.util;
+
+import com.mikepenz.aboutlibraries.entity.Library;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LibrarySearchIndexTest {
+    private static final int[] LIMITS = {-1, 0, 1, 2, 5};
+
+    @Test
+    public void findMatchesTheLinearSearch() {
+        List<Library> libraries = TestLibraries.create(400);
+        LibrarySearchIndex index = new LibrarySearchIndex(libraries);
+
+        for (String term : terms(libraries)) {
+            for (int limit : LIMITS) {
+                assertEquals(term + " / " + limit, linearFind(libraries, term, limit), index.find(term, limit));
+            }
+        }
+    }
+
+    @Test
+    public void searchFindsTheSameLibrariesAsALinearSearch() {
+        List<Library> libraries = TestLibraries.create(400);
+        LibrarySearchIndex index = new LibrarySearchIndex(libraries);
+
+        for (String term : terms(libraries)) {
+            ArrayList<Library> result = index.search(term, -1);
+            assertEquals(term, linearSearch(libraries, term), new HashSet<>(result));
+            assertEquals(term, result.size(), new HashSet<>(result).size());
+
+            ArrayList<Library> limited = index.search(term, 3);
+            assertEquals(term, result.subList(0, Math.min(3, result.size())), limited);
+        }
+    }
+
+    @Test
+    public void searchRanksExactNameMatchesFirst() {
+        List<Library> libraries = TestLibraries.create(400);
+        LibrarySearchIndex index = new LibrarySearchIndex(libraries);
+
+        for (Library library : libraries) {
+            String term = library.getLibraryName().toUpperCase();
+            if (!term.equalsIgnoreCase(library.getLibraryName())) {
+                //e.g. the upper case of "\u00df" is "SS"
+                term = library.getLibraryName();
+            }
+            ArrayList<Library> result = index.search(term, -1);
+            assertTrue(library.getLibraryName(), result.contains(library));
+            //the first library with exactly this name wins
+            for (Library other : libraries) {
+                if (other.getLibraryName().equalsIgnoreCase(library.getLibraryName())) {
+                    assertSame(library.getLibraryName(), other, result.get(0));
+                    break;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void emptyIndex() {
+        LibrarySearchIndex index = new LibrarySearchIndex(new ArrayList<Library>());
+        assertTrue(index.find("fast", -1).isEmpty());
+        assertTrue(index.find("", -1).isEmpty());
+        assertTrue(index.search("fast", -1).isEmpty());
+        assertTrue(index.search(null, -1).isEmpty());
+    }
+
+    /**
+     * the linear search the index replaced (Libs.find())
+     */
+    private static ArrayList<Library> linearFind(List<Library> libraries, String searchTerm, int limit) {
+        ArrayList<Library> localLibs = new ArrayList<>();
+
+        int count = 0;
+        for (Library library : libraries) {
+            if (library.getLibraryName().toLowerCase().contains(searchTerm.toLowerCase()) || library.getDefinedName().toLowerCase().contains(searchTerm.toLowerCase())) {
+                localLibs.add(library);
+                count = count + 1;
+
+                if (limit != -1 && limit < count) {
+                    break;
+                }
+            }
+        }
+
+        return localLibs;
+    }
+
+    private static Set<Library> linearSearch(List<Library> libraries, String searchTerm) {
+        String term = searchTerm.toLowerCase();
+        Set<Library> result = new HashSet<>();
+        for (Library library : libraries) {
+            if (contains(library.getLibraryName(), term) || contains(library.getDefinedName(), term)
+                    || contains(library.getAuthor(), term) || contains(library.getLibraryDescription(), term)) {
+                result.add(library);
+            }
+        }
+        return result;
+    }
+
+    private static boolean contains(String value, String term) {
+        return value != null && value.toLowerCase().contains(term);
+    }
+
+    /**
+     * @return substrings of the names and descriptions in different cases, and terms which are not contained at all
+     */
+    private static Set<String> terms(List<Library> libraries) {
+        Random random = new Random(42);
+        Set<String> terms = new LinkedHashSet<>();
+        terms.add("");
+        terms.add("zzzz");
+        terms.add("q");
+        terms.add("library that does not exist");
+        for (int i = 0; i < 300; i++) {
+            Library library = libraries.get(random.nextInt(libraries.size()));
+            String source;
+            switch (random.nextInt(3)) {
+                case 0:
+                    source = library.getLibraryName();
+                    break;
+                case 1:
+                    source = library.getDefinedName();
+                    break;
+                default:
+                    source = library.getLibraryDescription() != null ? library.getLibraryDescription() : library.getLibraryName();
+                    break;
+            }
+            int start = random.nextInt(source.length());
+            int end = Math.min(source.length(), start + 1 + random.nextInt(8));
+            String term = source.substring(start, end);
+            terms.add(random.nextBoolean() ? term.toUpperCase() : term);
+        }
+        return terms;
+    }
+}
@@ -0,0 +1,39 @@
+package com.mikepenz.aboutlibraries.util;
+
+import com.mikepenz.aboutlibraries.entity.Library;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * creates libraries like the bundled definitions, including names which only differ in their case
+ */
+class TestLibraries {
+    private static final String[] WORDS = {"fast", "adapter", "okhttp", "retrofit", "material", "drawer", "icon", "ics",
+            "android", "support", "view", "recycler", "glide", "image", "loader", "rx", "java", "kotlin", "json", "gson",
+            "card", "pager", "\u00dcber", "\u00df", "_", "-"};
+
+    private TestLibraries() {
+    }
+
+    static List<Library> create(int count) {
+        Random random = new Random(7);
+        ArrayList<Library> libraries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = word(random) + word(random) + (random.nextInt(4) == 0 ? " " + word(random) : "");
+            if (random.nextInt(5) == 0) {
+                name = name.toUpperCase();
+            }
+            Library library = new Library(random.nextInt(6) == 0 ? null : "Author " + word(random), name,
+                    random.nextInt(6) == 0 ? null : "A " + word(random) + " library for " + word(random) + ", see " + name);
+            library.setDefinedName(name.toLowerCase().replace(' ', '_') + (random.nextInt(3) == 0 ? "_" + i : ""));
+            libraries.add(library);
+        }
+        return libraries;
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
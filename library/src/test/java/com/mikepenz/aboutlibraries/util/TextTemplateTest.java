@@ -0,0 +1,148 @@
+package com.mikepenz.aboutlibraries.util;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TextTemplateTest {
+    @Test
+    public void bundledLicensesRenderLikeInsertVariables() throws Exception {
+        List<String> texts = bundledLicenseTexts();
+        assertTrue("no license texts found", texts.size() >= 10);
+
+        List<HashMap<String, String>> variableSets = new ArrayList<>();
+        variableSets.add(new HashMap<String, String>());
+        variableSets.add(variables("year", "2018", "owner", "Mike Penz"));
+        variableSets.add(variables("YEAR", "2015-2018", "OWNER", "", "AUTHOR", "Mike Penz", "libraryName", "AboutLibraries", "libraryWebsite", "https://github.com/mikepenz/AboutLibraries"));
+        variableSets.add(variables("year", "<<<2018>>>", "owner", "a > b < c"));
+
+        int placeholders = 0;
+        for (String text : texts) {
+            if (text.contains("<<<")) {
+                placeholders++;
+            }
+            TextTemplate template = TextTemplate.compile(text);
+            for (HashMap<String, String> variables : variableSets) {
+                assertEquals(insertVariables(text, variables), template.render(variables));
+            }
+        }
+        assertTrue("no license text with placeholders found", placeholders > 0);
+    }
+
+    @Test
+    public void markersAreRemoved() {
+        HashMap<String, String> variables = variables("year", "2018");
+        String[] texts = {
+                "",
+                "no markers",
+                "<<<YEAR>>>",
+                "Copyright <<<YEAR>>> <<<OWNER>>>",
+                "<<<unknown key>>> and <<<>>>",
+                "single <<< and >>> markers",
+                "<<<<YEAR>>>>",
+                "<<<<<<<YEAR>>>",
+                "<<<<<YEAR>>>> <<<<OWNER>>>>",
+                "<<<YEAR",
+                "YEAR>>>",
+                "<<<YE<AR>>>",
+        };
+        for (String text : texts) {
+            assertEquals(text, insertVariables(text, variables), TextTemplate.compile(text).render(variables));
+        }
+    }
+
+    @Test
+    public void textWithoutMarkersIsReused() {
+        String text = "The MIT License";
+        assertSame(text, TextTemplate.compile(text).render(variables("year", "2018")));
+        assertSame(text, TextTemplate.compile(text).getText());
+    }
+
+    /**
+     * the replace based implementation TextTemplate replaced (Libs.insertVariables())
+     */
+    private static String insertVariables(String insertInto, HashMap<String, String> variables) {
+        for (Map.Entry<String, String> entry : variables.entrySet()) {
+            if (entry.getValue() != null && entry.getValue().length() > 0) {
+                insertInto = insertInto.replace("<<<" + entry.getKey().toUpperCase() + ">>>", entry.getValue());
+            }
+        }
+
+        //remove the placeholder chars so the license is shown correct
+        insertInto = insertInto.replace("<<<", "");
+        insertInto = insertInto.replace(">>>", "");
+
+        return insertInto;
+    }
+
+    private static HashMap<String, String> variables(String... keysAndValues) {
+        HashMap<String, String> variables = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            variables.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return variables;
+    }
+
+    /**
+     * @return the license strings of the resources and the full texts of src/main/licenses
+     */
+    private static List<String> bundledLicenseTexts() throws Exception {
+        ArrayList<String> texts = new ArrayList<>();
+
+        File[] resources = new File("src/main/res/values").listFiles();
+        if (resources != null) {
+            for (File file : resources) {
+                if (file.getName().startsWith("licen") && file.getName().endsWith("_strings.xml")) {
+                    Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+                    NodeList strings = document.getElementsByTagName("string");
+                    for (int i = 0; i < strings.getLength(); i++) {
+                        Element string = (Element) strings.item(i);
+                        if (string.getAttribute("name").startsWith("license_")) {
+                            texts.add(string.getTextContent());
+                        }
+                    }
+                }
+            }
+        }
+
+        File[] licenses = new File("src/main/licenses").listFiles();
+        if (licenses != null) {
+            for (File file : licenses) {
+                texts.add(read(file));
+            }
+        }
+        return texts;
+    }
+
+    private static String read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return bytes.toString("UTF-8");
+        } finally {
+            in.close();
+        }
+    }
+}